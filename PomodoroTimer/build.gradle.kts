@@ -28,6 +28,19 @@ android {
         targetCompatibility = JavaVersion.VERSION_11
     }
 
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // ./gradlew :PomodoroTimer:testDebugUnitTest -PrecordGoldens=true
+                it.systemProperty("timerview.recordGoldens", project.findProperty("recordGoldens") ?: "false")
+                it.systemProperty("timerview.goldenDir", file("src/test/resources/golden").absolutePath)
+                // Candidates and failures go to build/golden-candidates and build/golden-failures
+                it.systemProperty("timerview.outputDir", project.layout.buildDirectory.get().asFile.absolutePath)
+            }
+        }
+    }
+
     publishing {
         singleVariant("release") {
             withSourcesJar()
@@ -40,6 +53,8 @@ dependencies {
     implementation(libs.appcompat)
     implementation(libs.material)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
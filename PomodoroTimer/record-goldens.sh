@@ -0,0 +1,65 @@
+#!/bin/sh
+# Records the TimerView rendering goldens against the baseline renderer and reviews
+# every later pixel change against them. Needs the Android SDK (Robolectric native graphics).
+#
+# 1. Goldens are recorded at BASELINE, the commit that added TimerViewRenderingTest,
+#    and copied to src/test/resources/golden. Commit these first.
+# 2. The renderer just before the dial margin fix (MARGIN_FIX~1) is compared with them.
+#    The commits in between are meant to be pixel-neutral, so this should not differ.
+# 3. HEAD is compared with them. Only the dial margin fix (MARGIN_FIX) should differ:
+#    dials below the 600 px design radius get a hand cap and a smaller knob.
+# Differing renderings of each step are copied to build/golden-review/<step>.
+# After reviewing them, re-record at HEAD and commit the reviewed goldens separately:
+# ./gradlew :PomodoroTimer:testDebugUnitTest -PrecordGoldens=true
+#
+# Usage: PomodoroTimer/record-goldens.sh [BASELINE] [MARGIN_FIX]
+set -e
+
+BASELINE=${1:-2822358}
+MARGIN_FIX=${2:-06a1b95}
+ROOT=$(git rev-parse --show-toplevel)
+MODULE="$ROOT/PomodoroTimer"
+GOLDEN_DIR="$MODULE/src/test/resources/golden"
+REVIEW_DIR="$MODULE/build/golden-review"
+TEST=orion.gz.pomodorotimer.TimerViewRenderingTest.render_matchesGoldens
+WORKTREE=$(mktemp -d)
+
+git -C "$ROOT" worktree add --detach "$WORKTREE" "$BASELINE"
+trap 'git -C "$ROOT" worktree remove --force "$WORKTREE"' EXIT
+# SDK location
+if [ -f "$ROOT/local.properties" ]; then cp "$ROOT/local.properties" "$WORKTREE/"; fi
+
+run_test() {
+    (cd "$WORKTREE" && ./gradlew -q :PomodoroTimer:testDebugUnitTest --tests "$TEST" "$@")
+}
+
+# Render REF against the goldens, keep its differing renderings under STEP
+review() {
+    ref=$1
+    step=$2
+    git -C "$WORKTREE" checkout -q --detach "$ref"
+    git -C "$WORKTREE" clean -q -fdx -e local.properties
+    mkdir -p "$WORKTREE/PomodoroTimer/src/test/resources/golden"
+    cp "$GOLDEN_DIR"/*.png "$WORKTREE/PomodoroTimer/src/test/resources/golden/"
+
+    if run_test; then
+        echo "$step ($ref): matches the goldens"
+        return
+    fi
+    mkdir -p "$REVIEW_DIR/$step"
+    # Older versions of the test write relative to the module directory
+    find "$WORKTREE/PomodoroTimer" -path '*golden-failures/*.png' -exec cp {} "$REVIEW_DIR/$step/" \;
+    echo "$step ($ref): differs, review $REVIEW_DIR/$step"
+    ls "$REVIEW_DIR/$step"
+}
+
+# 1. Record at the baseline
+rm -rf "$REVIEW_DIR"
+run_test -PrecordGoldens=true
+mkdir -p "$GOLDEN_DIR"
+cp "$WORKTREE"/PomodoroTimer/src/test/resources/golden/*.png "$GOLDEN_DIR/"
+echo "Recorded $(ls "$GOLDEN_DIR" | wc -l) goldens at $BASELINE into $GOLDEN_DIR"
+
+# 2. and 3. Review the later renderers
+review "$MARGIN_FIX~1" before-margin-fix
+review "$(git -C "$ROOT" rev-parse HEAD)" head
@@ -0,0 +1,309 @@
+package orion.gz.pomodorotimer;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Drawing resources shared between all TimerView instances
+// Paints are keyed by color set, layout and tick layer by view size.
+// Shared objects are never modified after creation: a view that changes
+// color obtains another Paints instance instead (copy-on-write).
+// Under memory pressure tick layers and caches are dropped, and rebuilt on next use.
+final class DialResources {
+
+    // CONSTANTS
+    static final float CIRCLE_MARGIN = 150F;
+    static final float GRADUATION_MARGIN = 20F;
+    static final float KNOB_MARGIN = 425F;
+    static final float HAND_MARGIN = 450F;
+    static final float HAND_WIDTH = 22.5F;
+    static final float HAND_RADIUS = 8F;
+    static final float TICK_LENGTH = 20F;
+    static final float TICK_WIDTH = 5F;
+    static final float AMBIENT_STROKE_WIDTH = 4F;
+    // Radius (px) the margins were designed for: a 300dp dial at 4x density
+    // Below it all margins scale down with the view, so smaller dials keep the same shape
+    // (hand cap radius / 8, knob radius / 3.4) instead of losing the cap under HAND_MARGIN.
+    static final float REFERENCE_RADIUS = 600F;
+
+    // Default Colors
+    static final int DEFAULT_CIRCLE_COLOR = 0xFFEF5350;
+    static final int DEFAULT_KNOB_COLOR = 0xFFE57373;
+    static final int DEFAULT_HAND_COLOR = 0xFFF44336;
+    private static final int STROKE_COLOR = 0xFFDDDDDD;
+
+    // Cache Sizes
+    private static final int MAX_PAINTS = 16;
+    private static final int MAX_LAYOUTS = 8;
+    // Rough heap size of one cached entry, for reporting
+    private static final long PAINTS_BYTES = 9 * 96L;
+    private static final long LAYOUT_BYTES = 5 * 32L + 64L;
+
+    private static final Map<PaintsKey, Paints> paintsCache = new LruMap<>(MAX_PAINTS);
+    private static final Map<Long, Layout> layoutCache = new LruMap<>(MAX_LAYOUTS);
+
+    private static boolean isTrimRegistered = false;
+
+    private DialResources() {
+    }
+
+    // Listen for memory pressure once per process
+    static synchronized void registerMemoryCallbacks(Context context) {
+        if (isTrimRegistered) return;
+        isTrimRegistered = true;
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(TRIM_MEMORY_COMPLETE);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        });
+    }
+
+    // Release in tiers by trim level (ComponentCallbacks2 values)
+    // Running low: keep only the most recently used tick layer
+    // UI hidden: no tick layers. Background and above: empty caches
+    // Views keep the Paints and Layout they hold, tick layers are rebuilt on next draw.
+    static synchronized void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            for (Layout layout : layoutCache.values()) layout.releaseTickLayer();
+            layoutCache.clear();
+            paintsCache.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            for (Layout layout : layoutCache.values()) layout.releaseTickLayer();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            // Access order: the last entry is the most recently used
+            int keep = layoutCache.size() - 1;
+            int index = 0;
+            for (Layout layout : layoutCache.values())
+                if (index++ < keep) layout.releaseTickLayer();
+        }
+    }
+
+    // Bytes held by each cache, tick layers exact and the rest estimated
+    static synchronized void reportBytes(Map<String, Long> out) {
+        long tickLayers = 0;
+        for (Layout layout : layoutCache.values()) tickLayers += layout.tickLayerBytes();
+        out.put("dial.paints", paintsCache.size() * PAINTS_BYTES);
+        out.put("dial.layouts", layoutCache.size() * LAYOUT_BYTES);
+        out.put("dial.tickLayers", tickLayers);
+    }
+
+    // Get shared paints for a color set
+    static synchronized Paints obtainPaints(int circleColor, int knobColor, int handColor) {
+        PaintsKey key = new PaintsKey(circleColor, knobColor, handColor);
+        Paints paints = paintsCache.get(key);
+        if (paints == null) {
+            paints = new Paints(circleColor, knobColor, handColor);
+            paintsCache.put(key, paints);
+        }
+        return paints;
+    }
+
+    // Get shared layout for a view size
+    static synchronized Layout obtainLayout(int width, int height) {
+        Long key = ((long) width << 32) | (height & 0xFFFFFFFFL);
+        Layout layout = layoutCache.get(key);
+        if (layout == null) {
+            layout = new Layout(width, height);
+            layoutCache.put(key, layout);
+        }
+        return layout;
+    }
+
+    // Paint Objects for one color set
+    static final class Paints {
+        final int circleColor, knobColor, handColor;
+        final Paint redCircle, whiteCircle, knobCircle, knobStroke, hand, handCircle;
+        // Ambient mode: outlines only, no anti-aliasing
+        final Paint ambientOutline, ambientArc, ambientHand;
+
+        private Paints(int circleColor, int knobColor, int handColor) {
+            this.circleColor = circleColor;
+            this.knobColor = knobColor;
+            this.handColor = handColor;
+
+            redCircle = new Paint();
+            redCircle.setColor(circleColor);
+            redCircle.setStyle(Paint.Style.FILL);
+            redCircle.setAntiAlias(true);
+
+            whiteCircle = new Paint();
+            whiteCircle.setColor(Color.WHITE);
+            whiteCircle.setStyle(Paint.Style.FILL);
+            whiteCircle.setAntiAlias(true);
+
+            knobCircle = new Paint();
+            knobCircle.setColor(knobColor);
+            knobCircle.setStyle(Paint.Style.FILL_AND_STROKE);
+            knobCircle.setAntiAlias(true);
+
+            knobStroke = new Paint();
+            knobStroke.setColor(STROKE_COLOR);
+            knobStroke.setStyle(Paint.Style.STROKE);
+            knobStroke.setStrokeWidth(3F);
+            knobStroke.setAntiAlias(true);
+
+            hand = new Paint();
+            hand.setColor(handColor);
+            hand.setStyle(Paint.Style.FILL);
+            hand.setAntiAlias(true);
+
+            handCircle = new Paint();
+            handCircle.setColor(STROKE_COLOR);
+            handCircle.setStyle(Paint.Style.FILL);
+            handCircle.setAntiAlias(true);
+
+            ambientOutline = ambientPaint(Color.GRAY);
+            ambientArc = ambientPaint(circleColor);
+            ambientHand = ambientPaint(handColor);
+        }
+
+        private static Paint ambientPaint(int color) {
+            Paint paint = new Paint();
+            paint.setColor(color);
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setStrokeWidth(AMBIENT_STROKE_WIDTH);
+            paint.setAntiAlias(false);
+            return paint;
+        }
+    }
+
+    // RectF Objects and tick layer for one view size
+    static final class Layout {
+        final int width, height;
+        final float centerX, centerY;
+        final float graduationRadius;
+        final float scale;
+        final float handCornerRadius;
+        final RectF circleBounds = new RectF();
+        final RectF graduationCircleBounds = new RectF();
+        final RectF knobCircleBounds = new RectF();
+        final RectF handBounds = new RectF();
+        final RectF handCircleBounds = new RectF();
+
+        // Graduation(marks) rendered once, drawn with a single drawBitmap
+        private Bitmap tickLayer;
+
+        private Layout(int width, int height) {
+            this.width = width;
+            this.height = height;
+            centerX = width / 2F;
+            centerY = height / 2F;
+
+            float radius = Math.min(centerX, centerY);
+            scale = Math.min(1F, radius / REFERENCE_RADIUS);
+            float circleRadius = radius - CIRCLE_MARGIN * scale;
+            float knobRadius = radius - KNOB_MARGIN * scale;
+            float handRadius = radius - HAND_MARGIN * scale;
+            float handWidth = HAND_WIDTH * scale;
+            handCornerRadius = HAND_RADIUS * scale;
+            graduationRadius = radius - GRADUATION_MARGIN * scale;
+            float handLength = graduationRadius;
+
+            circleBounds.set(centerX - circleRadius, centerY - circleRadius, centerX + circleRadius, centerY + circleRadius);
+            graduationCircleBounds.set(centerX - graduationRadius, centerY - graduationRadius, centerX + graduationRadius, centerY + graduationRadius);
+            knobCircleBounds.set(centerX - knobRadius, centerY - knobRadius, centerX + knobRadius, centerY + knobRadius);
+            handBounds.set(-(handWidth / 2), -handLength, (handWidth / 2), 0);
+            handCircleBounds.set(-(handRadius / 2), handRadius / 2, handRadius / 2, -(handRadius / 2));
+        }
+
+        synchronized void releaseTickLayer() {
+            // Not recycled: a frame being drawn may still use it
+            tickLayer = null;
+        }
+
+        synchronized long tickLayerBytes() {
+            return tickLayer == null ? 0 : tickLayer.getAllocationByteCount();
+        }
+
+        synchronized Bitmap getTickLayer() {
+            if (tickLayer == null && width > 0 && height > 0) {
+                tickLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                drawGraduation(new Canvas(tickLayer), centerX, centerY, graduationRadius, scale);
+            }
+            return tickLayer;
+        }
+    }
+
+    // Draw hand graduation(marks)
+    static void drawGraduation(Canvas canvas, float centerX, float centerY, float graduationRadius, float scale) {
+        float tickLength = TICK_LENGTH * scale;
+        Paint tick = new Paint();
+        tick.setStrokeWidth(TICK_WIDTH * scale);
+        tick.setAntiAlias(true);
+
+        canvas.save();
+        canvas.translate(centerX, centerY);
+
+        for (int i = 0; i < 60; i++) {
+            tick.setColor(Color.GRAY);
+            float startY = -graduationRadius;
+            float stopY = -graduationRadius - tickLength;
+
+            // Draw longer graduation(marks) every 5 minutes
+            if (i % 5 == 0) {
+                tick.setColor(Color.DKGRAY);
+                startY = -graduationRadius - tickLength;
+                stopY = -graduationRadius + tickLength;
+            }
+
+            canvas.drawLine(0, startY, 0, stopY, tick);
+            canvas.rotate(6);
+        }
+        canvas.restore();
+    }
+
+    private static final class PaintsKey {
+        final int circleColor, knobColor, handColor;
+
+        PaintsKey(int circleColor, int knobColor, int handColor) {
+            this.circleColor = circleColor;
+            this.knobColor = knobColor;
+            this.handColor = handColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PaintsKey)) return false;
+            PaintsKey other = (PaintsKey) o;
+            return circleColor == other.circleColor && knobColor == other.knobColor && handColor == other.handColor;
+        }
+
+        @Override
+        public int hashCode() {
+            return (circleColor * 31 + knobColor) * 31 + handColor;
+        }
+    }
+
+    // Access-ordered map that drops the least recently used entry
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(maxSize, 0.75F, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package orion.gz.pomodorotimer;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.Nullable;
+
+// Time series chart for long histories, e.g. years of daily focus minutes
+// Data is handed over once as arrays, the view never reads storage.
+// Each pixel column draws the min/max of the points it covers, taken from a MinMaxPyramid,
+// so a frame costs O(width) however many points are visible. Paths are cached and only
+// rebuilt when the data, the viewport or the size changes.
+public class HistoryChartView extends View {
+
+    // Default Colors
+    private static final int DEFAULT_LINE_COLOR = DialResources.DEFAULT_CIRCLE_COLOR;
+    private static final int DEFAULT_FILL_COLOR = 0x40EF5350;
+    private static final float LINE_WIDTH_DP = 1.5F;
+    // Default narrowest viewport: one week of daily points
+    private static final long DEFAULT_MIN_SPAN = 7 * 24 * 60 * 60 * 1000L;
+
+    // Series, x ascending
+    private long[] xs = new long[0];
+    private MinMaxPyramid pyramid = new MinMaxPyramid(new float[0]);
+    // Visible x range
+    private long viewStart, viewEnd;
+    private long minSpan = DEFAULT_MIN_SPAN;
+
+    // Cached Paths
+    private final Path linePath = new Path();
+    private final Path fillPath = new Path();
+    private boolean isPathDirty = true;
+    // Number of path rebuilds, for tests
+    int pathBuilds = 0;
+    // Per column envelope, reused between rebuilds
+    private float[] columnMin = new float[0];
+    private float[] columnMax = new float[0];
+    private final float[] range = new float[2];
+
+    private final Paint linePaint = new Paint();
+    private final Paint fillPaint = new Paint();
+
+    // Gestures
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector panDetector;
+    // A horizontal drag took the gesture from the parent, vertical ones are left to it
+    private boolean isPanning = false;
+
+    /** Constructer **/
+    public HistoryChartView(Context context) {
+        super(context);
+        init(null);
+    }
+
+    public HistoryChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(attrs);
+    }
+
+    public HistoryChartView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs);
+    }
+    /** Constructer **/
+
+    private void init(AttributeSet attrs) {
+        TypedArray attr = getContext().obtainStyledAttributes(attrs, R.styleable.HistoryChartView);
+        int lineColor = attr.getColor(R.styleable.HistoryChartView_chart_line_color, DEFAULT_LINE_COLOR);
+        int fillColor = attr.getColor(R.styleable.HistoryChartView_chart_fill_color, DEFAULT_FILL_COLOR);
+        attr.recycle();
+
+        linePaint.setColor(lineColor);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(LINE_WIDTH_DP * getResources().getDisplayMetrics().density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setAntiAlias(true);
+
+        fillPaint.setColor(fillColor);
+        fillPaint.setStyle(Paint.Style.FILL);
+        fillPaint.setAntiAlias(true);
+
+        scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScaleBegin(ScaleGestureDetector detector) {
+                claimGesture();
+                return true;
+            }
+
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoom(detector.getScaleFactor(), detector.getFocusX());
+                return true;
+            }
+        });
+        panDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                // Past the touch slop: decide once per gesture who scrolls
+                if (!isPanning) {
+                    if (Math.abs(distanceX) <= Math.abs(distanceY)) return false;
+                    isPanning = true;
+                    claimGesture();
+                }
+                pan(distanceX);
+                return true;
+            }
+        });
+    }
+
+    /** Data **/
+    // Set the series, x ascending (e.g. day start in epoch millis) with one value per x
+    // Arrays are kept, not copied: do not modify them afterwards
+    public void setData(long[] x, float[] y) {
+        if (x.length != y.length) throw new IllegalArgumentException("x and y differ in length");
+        xs = x;
+        pyramid = new MinMaxPyramid(y);
+        if (x.length > 0) {
+            viewStart = x[0];
+            viewEnd = Math.max(x[x.length - 1], x[0] + 1);
+        }
+        invalidatePaths();
+    }
+
+    // Show [start, end], clamped to the data
+    public void setViewport(long start, long end) {
+        if (xs.length == 0) return;
+        long first = xs[0], last = Math.max(xs[xs.length - 1], first + 1);
+        long span = Math.min(Math.max(end - start, Math.min(minSpan, last - first)), last - first);
+        start = Math.max(first, Math.min(start, last - span));
+        if (start == viewStart && start + span == viewEnd) return;
+        viewStart = start;
+        viewEnd = start + span;
+        invalidatePaths();
+    }
+
+    public long getViewportStart() {
+        return viewStart;
+    }
+
+    public long getViewportEnd() {
+        return viewEnd;
+    }
+
+    // Narrowest viewport allowed by pinch-zoom, in x units
+    public void setMinSpan(long span) {
+        minSpan = Math.max(1, span);
+    }
+
+    public void setLineColor(@ColorInt int color) {
+        linePaint.setColor(color);
+        invalidate();
+    }
+
+    public void setFillColor(@ColorInt int color) {
+        fillPaint.setColor(color);
+        invalidate();
+    }
+
+    private void invalidatePaths() {
+        isPathDirty = true;
+        invalidate();
+    }
+    /** Data **/
+
+    /** Gesture **/
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (xs.length == 0) return super.onTouchEvent(event);
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) isPanning = false;
+        scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) panDetector.onTouchEvent(event);
+        return true;
+    }
+
+    // Only a pan or a pinch in progress keeps a ScrollView/ViewPager parent from intercepting
+    private void claimGesture() {
+        if (getParent() != null) getParent().requestDisallowInterceptTouchEvent(true);
+    }
+
+    // Scale the span around the x under the focus point
+    void zoom(float scaleFactor, float focusX) {
+        float fraction = Math.max(0F, Math.min(1F, (focusX - getPaddingLeft()) / chartWidth()));
+        long span = viewEnd - viewStart;
+        long anchor = viewStart + (long) (span * (double) fraction);
+        long newSpan = (long) (span / (double) scaleFactor);
+        long start = anchor - (long) (newSpan * (double) fraction);
+        setViewport(start, start + newSpan);
+    }
+
+    void pan(float distancePx) {
+        long shift = (long) ((viewEnd - viewStart) * (double) distancePx / chartWidth());
+        setViewport(viewStart + shift, viewEnd + shift);
+    }
+
+    private int chartWidth() {
+        return Math.max(1, getWidth() - getPaddingLeft() - getPaddingRight());
+    }
+    /** Gesture **/
+
+    /** Draw **/
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        isPathDirty = true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (isPathDirty) buildPaths();
+        // Points just outside the viewport are part of the paths
+        canvas.save();
+        canvas.clipRect(getPaddingLeft(), 0, getWidth() - getPaddingRight(), getHeight());
+        canvas.drawPath(fillPath, fillPaint);
+        canvas.drawPath(linePath, linePaint);
+        canvas.restore();
+    }
+
+    // Envelope of the viewport, one min/max pair per pixel column
+    private void buildPaths() {
+        isPathDirty = false;
+        pathBuilds++;
+        linePath.rewind();
+        fillPath.rewind();
+
+        int width = chartWidth();
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (xs.length == 0 || height <= 0) return;
+        if (columnMin.length != width) {
+            columnMin = new float[width];
+            columnMax = new float[width];
+        }
+
+        // One point past each edge so the line runs off the sides
+        int first = Math.max(0, lowerBound(viewStart) - 1);
+        int last = Math.min(xs.length, lowerBound(viewEnd + 1) + 1);
+        double span = viewEnd - viewStart;
+
+        float low = 0F, high = Float.NEGATIVE_INFINITY;
+        int columns;
+        boolean isRaw = last - first <= width;
+        if (isRaw) {
+            // Fewer points than pixels: draw the points themselves
+            columns = last - first;
+            for (int i = first; i < last; i++) {
+                float value = pyramid.get(i);
+                columnMin[i - first] = value;
+                columnMax[i - first] = value;
+                low = Math.min(low, value);
+                high = Math.max(high, value);
+            }
+        } else {
+            columns = width;
+            int from = lowerBound(viewStart);
+            for (int column = 0; column < width; column++) {
+                int to = lowerBound(viewStart + (long) Math.ceil(span * (column + 1) / width));
+                if (column == width - 1) to = Math.max(to, lowerBound(viewEnd + 1));
+                if (from >= to) {
+                    columnMin[column] = Float.NaN;
+                } else {
+                    pyramid.query(from, to, range);
+                    columnMin[column] = range[0];
+                    columnMax[column] = range[1];
+                    low = Math.min(low, range[0]);
+                    high = Math.max(high, range[1]);
+                }
+                from = to;
+            }
+        }
+        if (high <= low) high = low + 1F;
+
+        float left = getPaddingLeft(), bottom = getPaddingTop() + height;
+        float scaleY = height / (high - low);
+        float startX = 0F, endX = 0F;
+        boolean isStarted = false;
+        for (int column = 0; column < columns; column++) {
+            if (Float.isNaN(columnMin[column])) continue;
+            float x = isRaw
+                    ? left + (float) ((xs[first + column] - viewStart) / span * width)
+                    : left + column + 0.5F;
+            float top = bottom - (columnMax[column] - low) * scaleY;
+            if (!isStarted) {
+                linePath.moveTo(x, top);
+                fillPath.moveTo(x, bottom);
+                startX = x;
+                isStarted = true;
+            } else
+                linePath.lineTo(x, top);
+            fillPath.lineTo(x, top);
+            if (columnMin[column] != columnMax[column])
+                linePath.lineTo(x, bottom - (columnMin[column] - low) * scaleY);
+            endX = x;
+        }
+        if (isStarted) {
+            fillPath.lineTo(endX, bottom);
+            fillPath.lineTo(startX, bottom);
+            fillPath.close();
+        }
+    }
+
+    // Index of the first x >= value
+    private int lowerBound(long value) {
+        int low = 0, high = xs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+    /** Draw **/
+}
@@ -0,0 +1,60 @@
+package orion.gz.pomodorotimer;
+
+// Precomputed min/max of a series at every power of two bucket size
+// Level 0 is the series itself, each level halves the previous one (about 2n floats in total).
+// Any index range is answered exactly from O(log n) buckets, so a chart column costs the
+// same whether it covers ten points or ten thousand.
+final class MinMaxPyramid {
+    private final float[][] mins;
+    private final float[][] maxs;
+    private final int size;
+
+    MinMaxPyramid(float[] values) {
+        size = values.length;
+        int levels = 1;
+        for (int length = size; length > 1; length = (length + 1) / 2) levels++;
+
+        mins = new float[levels][];
+        maxs = new float[levels][];
+        mins[0] = values;
+        maxs[0] = values;
+        for (int level = 1; level < levels; level++) {
+            float[] lowerMin = mins[level - 1], lowerMax = maxs[level - 1];
+            int length = (lowerMin.length + 1) / 2;
+            float[] min = new float[length], max = new float[length];
+            for (int i = 0; i < length; i++) {
+                int left = i * 2, right = Math.min(left + 1, lowerMin.length - 1);
+                min[i] = Math.min(lowerMin[left], lowerMin[right]);
+                max[i] = Math.max(lowerMax[left], lowerMax[right]);
+            }
+            mins[level] = min;
+            maxs[level] = max;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    float get(int index) {
+        return mins[0][index];
+    }
+
+    // Min and max of [from, to) into out[0], out[1]
+    void query(int from, int to, float[] out) {
+        float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+        int i = from;
+        while (i < to) {
+            // Largest aligned bucket starting at i that fits in the range
+            int level = 0;
+            while (level + 1 < mins.length && (i & ((2 << level) - 1)) == 0 && i + (2 << level) <= to)
+                level++;
+            int bucket = i >> level;
+            min = Math.min(min, mins[level][bucket]);
+            max = Math.max(max, maxs[level][bucket]);
+            i += 1 << level;
+        }
+        out[0] = min;
+        out[1] = max;
+    }
+}
@@ -1,35 +1,71 @@
 package orion.gz.pomodorotimer;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.SeekBar;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.Nullable;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-public class TimerView extends View {
-
-    // CONSTANTS
-    private static final float CIRCLE_MARGIN = 150F;
-    private static final float GRADUATION_MARGIN = 20F;
-    private static final float KNOB_MARGIN = 425F;
-    private static final float HAND_MARGIN = 450F;
-    private static final float HAND_WIDTH = 22.5F;
-    private static final float HAND_RADIUS = 8F;
 
-    // Paint Objects
-    private Paint redCircle, whiteCircle, knobCircle, knobStroke, hand, handCircle, tick;
+public class TimerView extends View {
 
-    // RectF Objects
-    private RectF circleBounds, graduationCircleBounds, knobCircleBounds, handBounds, handCircleBounds;
+    // Time Model - one turn of the dial is 60 minutes, one degree is 10 seconds
+    private static final long MILLIS_PER_TURN = 60 * 60 * 1000L;
+    private static final long MILLIS_PER_DEGREE = MILLIS_PER_TURN / 360;
+    private static final long DEFAULT_MILLIS = 25 * 60 * 1000L;
+
+    // Haptic Detents
+    private static final int DEFAULT_DETENT_MINUTES = 1;
+    private static final int DEFAULT_MAX_HAPTICS_PER_SECOND = 20;
+    private static final long DETENT_VIBRATION_MILLIS = 5;
+
+    // Fling - angular velocities in degrees per second
+    private static final float MIN_FLING_VELOCITY = 180F;
+    private static final float MAX_FLING_VELOCITY = 2160F;
+    private static final float STOP_FLING_VELOCITY = 30F;
+    // Exponential decay rate of the spin (1/s)
+    private static final float FLING_FRICTION = 2.5F;
+    // Degrees of one minute, the dial rests on these
+    private static final int DEGREES_PER_MINUTE = 6;
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    // Accessibility - the range reported to screen readers, in minutes (grows with the time set)
+    private static final int ACCESSIBILITY_MAX_MINUTES = 180;
+
+    // Shared by all TimerViews: prebuilt effect and the thread that talks to the Vibrator service
+    // (effect is held as Object so the class still loads below API 26)
+    private static Object detentEffect;
+    private static Handler hapticHandler;
+
+    // Shared Paint Objects (by color set) and RectF Objects (by size), see DialResources
+    private DialResources.Paints paints;
+    private DialResources.Layout layout;
 
     // Color Attr
     private int circleColor;
@@ -38,21 +74,45 @@ public class TimerView extends View {
 
     // Center X, Y Coordinate
     private float centerX, centerY;
-    // Angle of Arc - Default is 25 minutes (25 / 60 = 0.416777)
-    private float remainingRatio = 0.416777F;
-    // Last Touch Angle
-    private float lastAngle = -1;
-    // Sum of the number of rotations and the current angle
-    private float totalRotation = 0;
-    // Number of times the minute hand has rotated
-    private int turns = 0;
-
-    private long minutes = 25, seconds;
+    // Remaining Time in milliseconds - Default is 25 minutes
+    private long remainingMillis = DEFAULT_MILLIS;
+    // Last Touch Angle (degrees, snapped to minutes)
+    private int lastAngle = -1;
+    // Sum of the number of rotations and the current angle (degrees)
+    private int totalRotation = 0;
     // State
     private boolean isTouchable = true;
 
     // Util
-    private Vibrator vibrator;
+    private volatile Vibrator vibrator;
+    private boolean isHapticEnabled = true;
+    private int detentMinutes = DEFAULT_DETENT_MINUTES;
+    private long minHapticIntervalMillis = 1000 / DEFAULT_MAX_HAPTICS_PER_SECOND;
+    private long lastDetent = -1;
+    private long lastHapticUptime = 0;
+    private final Runnable detentVibration = this::vibrateDetent;
+    // Fling
+    private boolean isFlingEnabled = true;
+    private VelocityTracker velocityTracker;
+    private float flingVelocity;
+    private float flingRotation;
+    private long lastFlingFrameNanos;
+    private boolean isFlinging = false;
+    private final Choreographer.FrameCallback flingFrame = this::doFlingFrame;
+    // Ambient (low refresh) mode
+    private boolean isAmbient = false;
+    private boolean isAmbientAuto = false;
+    private boolean hasFocus = true;
+    private boolean isScreenOn = true;
+    // Time of the last drawn frame, -1 forces the next redraw
+    private long drawnMillis = -1;
+    // Accessibility: the value is only announced when the minute or the state changes
+    private AccessibilityManager accessibilityManager;
+    private long announcedMinute = -1;
+    private long lastAccessibilityEventUptime = 0;
+    private final Runnable accessibilityValueEvent = this::sendAccessibilityValueEvent;
+    // "25 minutes" etc., built once per value
+    private final SparseArray<String> minutesTexts = new SparseArray<>();
     // Listener
     private OnTimerChangeListener timeListener;
 
@@ -85,113 +145,162 @@ public class TimerView extends View {
     /** Listener **/
 
     /** Setter for Attr **/
+    public void setHapticEnabled(boolean enabled) {
+        this.isHapticEnabled = enabled;
+    }
+
+    // Vibrate every time the dial crosses a multiple of this many minutes (e.g. 1 or 5)
+    public void setHapticDetentMinutes(int minutes) {
+        this.detentMinutes = Math.max(1, minutes);
+        lastDetent = -1;
+    }
+
+    public void setMaxHapticsPerSecond(int count) {
+        this.minHapticIntervalMillis = count > 0 ? 1000 / count : 0;
+    }
+
+    // Simplified dial for always-on or dimmed screens, redrawn only when the arc visibly moves
+    public void setAmbientMode(boolean ambient) {
+        if (isAmbient == ambient) return;
+        isAmbient = ambient;
+        drawnMillis = -1;
+        invalidate();
+    }
+
+    public boolean isAmbientMode() {
+        return isAmbient;
+    }
+
+    // Enter ambient mode when the window loses focus or the screen turns off
+    public void setAmbientAuto(boolean auto) {
+        isAmbientAuto = auto;
+        updateAmbientAuto();
+    }
+
+    // Keep spinning after a fast release, and settle on a minute
+    public void setFlingEnabled(boolean enabled) {
+        this.isFlingEnabled = enabled;
+        if (!enabled) stopFling();
+    }
+
     public void setCirlceColor(@ColorInt int color) {
         this.circleColor = color;
-        if (redCircle != null)
-            redCircle.setColor(color);
-        invalidate();
+        updatePaints();
     }
 
     public void setKnobColor(@ColorInt int color) {
         this.knobColor = color;
-        if (knobCircle != null)
-            knobCircle.setColor(color);
-        invalidate();
+        updatePaints();
     }
 
     public void setHandColor(@ColorInt int color) {
         this.handColor = color;
-        if (hand != null)
-            hand.setColor(color);
+        updatePaints();
+    }
+
+    // Shared paints are never modified, switch to the ones for the new color set
+    private void updatePaints() {
+        paints = DialResources.obtainPaints(circleColor, knobColor, handColor);
         invalidate();
     }
     /** Setter for Attr **/
 
-    // Initialize Objects (Attributes, Paint, RectF)
+    // Initialize Objects (Attributes, Paint)
     private void init(AttributeSet attrs) {
         TypedArray attr = getContext().obtainStyledAttributes(attrs, R.styleable.TimerView);
-        circleColor = attr.getColor(R.styleable.TimerView_circle_color, Color.parseColor("#EF5350"));
-        knobColor = attr.getColor(R.styleable.TimerView_knob_color, Color.parseColor("#E57373"));
-        handColor = attr.getColor(R.styleable.TimerView_hand_color, Color.parseColor("#F44336"));
-
-        redCircle = new Paint();
-        redCircle.setColor(circleColor);
-        redCircle.setStyle(Paint.Style.FILL);
-        redCircle.setAntiAlias(true);
-
-        whiteCircle = new Paint();
-        whiteCircle.setColor(Color.WHITE);
-        whiteCircle.setStyle(Paint.Style.FILL);
-        whiteCircle.setAntiAlias(true);
-
-        knobCircle = new Paint();
-        knobCircle.setColor(knobColor);
-        knobCircle.setStyle(Paint.Style.FILL_AND_STROKE);
-        knobCircle.setAntiAlias(true);
-
-        knobStroke = new Paint();
-        knobStroke.setColor(Color.parseColor("#DDDDDD"));
-        knobStroke.setStyle(Paint.Style.STROKE);
-        knobStroke.setStrokeWidth(3F);
-        knobStroke.setAntiAlias(true);
-
-        hand = new Paint();
-        hand.setColor(handColor);
-        hand.setStyle(Paint.Style.FILL);
-        hand.setAntiAlias(true);
-
-        handCircle = new Paint();
-        handCircle.setColor(Color.parseColor("#DDDDDD"));
-        handCircle.setStyle(Paint.Style.FILL);
-        handCircle.setAntiAlias(true);
-
-        tick = new Paint();
-        tick.setColor(Color.GRAY);
-        tick.setStrokeWidth(5F);
-        tick.setAntiAlias(true);
-
-        circleBounds = new RectF();
-        graduationCircleBounds = new RectF();
-        knobCircleBounds = new RectF();
-        handCircleBounds = new RectF();
-        handBounds = new RectF();
-    }
-
-    // Update Time by angle of arc
-    // Function to get time according to angle
+        circleColor = attr.getColor(R.styleable.TimerView_circle_color, DialResources.DEFAULT_CIRCLE_COLOR);
+        knobColor = attr.getColor(R.styleable.TimerView_knob_color, DialResources.DEFAULT_KNOB_COLOR);
+        handColor = attr.getColor(R.styleable.TimerView_hand_color, DialResources.DEFAULT_HAND_COLOR);
+        setHapticEnabled(attr.getBoolean(R.styleable.TimerView_haptic_enabled, true));
+        setHapticDetentMinutes(attr.getInt(R.styleable.TimerView_haptic_detent_minutes, DEFAULT_DETENT_MINUTES));
+        setMaxHapticsPerSecond(attr.getInt(R.styleable.TimerView_haptic_max_per_second, DEFAULT_MAX_HAPTICS_PER_SECOND));
+        setFlingEnabled(attr.getBoolean(R.styleable.TimerView_fling_enabled, true));
+        setAmbientAuto(attr.getBoolean(R.styleable.TimerView_ambient_auto, false));
+        attr.recycle();
+
+        paints = DialResources.obtainPaints(circleColor, knobColor, handColor);
+        DialResources.registerMemoryCallbacks(getContext());
+
+        accessibilityManager = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+        if (getImportantForAccessibility() == IMPORTANT_FOR_ACCESSIBILITY_AUTO)
+            setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_YES);
+    }
+
+    // Notify listener of the current time
+    // Minutes are not wrapped, so sessions over 60 minutes report e.g. 90:00
     public void updateTime() {
-        int totalSeconds = (int) (remainingRatio * 60 * 60);
-        minutes = totalSeconds / 60 + turns * 60;
-        seconds = totalSeconds % 60;
+        long totalSeconds = remainingMillis / 1000;
 
         if (timeListener != null)
-            timeListener.onTimerChanged(minutes, seconds);
+            timeListener.onTimerChanged(totalSeconds / 60, totalSeconds % 60);
+    }
+
+    // Remaining time in milliseconds
+    public long getTimeMillis() {
+        return remainingMillis;
+    }
+
+    // Number of full turns of the minute hand (one turn is 60 minutes)
+    public int getTurns() {
+        return (int) (remainingMillis / MILLIS_PER_TURN);
+    }
+
+    // Bytes held by the caches shared between all TimerViews, by cache name
+    public static Map<String, Long> getCacheBytes() {
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        DialResources.reportBytes(bytes);
+        return bytes;
     }
 
     // Set State
     public void setTouchable(boolean touchable) {
+        if (isTouchable == touchable) return;
         isTouchable = touchable;
+        if (!touchable) stopFling();
+        // Adjust actions come and go with touchability
+        if (isAccessibilityActive()) sendAccessibilityEvent(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
     }
 
     // Reset rotation variables
     public void resetRotation() {
+        stopFling();
         totalRotation = 0;
         lastAngle = -1;
     }
 
     // Set View by Time
     public void setTime(long minutes, long seconds) {
-        this.minutes = minutes;
-        this.seconds = seconds;
-        float ratio = (minutes * 60 + seconds) / 3600F;
-        setRemainingRatio(ratio);
+        setTimeMillis((minutes * 60 + seconds) * 1000L);
     }
 
-    // Set angle of Arc and Update time
-    public void setRemainingRatio(float ratio) {
-        this.remainingRatio = ratio;
+    // Set View by Time in milliseconds and Update time
+    public void setTimeMillis(long millis) {
+        if (millis < 0) millis = 0;
+        this.remainingMillis = millis;
         updateTime();
-        invalidate();
+        notifyAccessibilityMinute();
+        if (!isAmbient || isVisibleChange(millis)) invalidate();
+    }
+
+    // Ambient redraw rule: the arc end moved at least one pixel, or the minute changed
+    boolean isVisibleChange(long millis) {
+        if (drawnMillis < 0 || layout == null) return true;
+        if (millis / MILLIS_PER_MINUTE != drawnMillis / MILLIS_PER_MINUTE) return true;
+
+        float radius = layout.circleBounds.width() / 2F;
+        double movedRadians = Math.abs(millis - drawnMillis) * 2 * Math.PI / MILLIS_PER_TURN;
+        return movedRadians * radius >= 1;
+    }
+
+    private void updateAmbientAuto() {
+        if (isAmbientAuto) setAmbientMode(!hasFocus || !isScreenOn);
+    }
+
+    // Set angle of Arc as a fraction of one turn (1.0 = 60 minutes)
+    // Deprecated: use setTimeMillis, which does not round
+    @Deprecated
+    public void setRemainingRatio(float ratio) {
+        setTimeMillis(Math.round(ratio * MILLIS_PER_TURN));
     }
 
     // Touch Handle Function
@@ -208,16 +317,16 @@ public class TimerView extends View {
         angleDegree -= (angleDegree % 6);
 
         if (lastAngle >= 0) {
-            float delta = angleDegree - lastAngle;
+            int delta = angleDegree - lastAngle;
 
             if (delta > 180) delta -= 360;
             else if (delta < -180) delta += 360;
             totalRotation += delta;
 
             if (totalRotation < 0) totalRotation = 0;
-            setRemainingRatio(totalRotation / 360F);
-            updateTime();
+            setTimeMillis(totalRotation * MILLIS_PER_DEGREE);
             lastAngle = angleDegree;
+            checkDetent();
         } else {
             lastAngle = angleDegree;
             if (totalRotation == 0)
@@ -225,12 +334,358 @@ public class TimerView extends View {
         }
     }
 
+    // Start spinning if the finger left the dial fast enough
+    // Angular velocity is the cross product of the radius and the finger velocity over |r|^2
+    private void startFling(float x, float y) {
+        if (!isFlingEnabled || velocityTracker == null) return;
+
+        velocityTracker.computeCurrentVelocity(1000);
+        float dx = x - centerX;
+        float dy = y - centerY;
+        float radiusSquared = dx * dx + dy * dy;
+        if (radiusSquared < 1F) return;
+
+        float velocity = (float) Math.toDegrees(
+                (dx * velocityTracker.getYVelocity() - dy * velocityTracker.getXVelocity()) / radiusSquared);
+        if (Math.abs(velocity) < MIN_FLING_VELOCITY) return;
+
+        flingVelocity = Math.max(-MAX_FLING_VELOCITY, Math.min(MAX_FLING_VELOCITY, velocity));
+        flingRotation = totalRotation;
+        lastFlingFrameNanos = 0;
+        isFlinging = true;
+        Choreographer.getInstance().postFrameCallback(flingFrame);
+    }
+
+    // Stop spinning where the dial is, e.g. on a new touch
+    private void stopFling() {
+        if (!isFlinging) return;
+        isFlinging = false;
+        Choreographer.getInstance().removeFrameCallback(flingFrame);
+    }
+
+    // One frame of the spin, no allocation
+    private void doFlingFrame(long frameTimeNanos) {
+        if (!isFlinging) return;
+
+        if (lastFlingFrameNanos != 0) {
+            float dt = (frameTimeNanos - lastFlingFrameNanos) / 1_000_000_000F;
+            flingRotation += flingVelocity * dt;
+            flingVelocity *= (float) Math.exp(-FLING_FRICTION * dt);
+        }
+        lastFlingFrameNanos = frameTimeNanos;
+
+        boolean atRest = Math.abs(flingVelocity) < STOP_FLING_VELOCITY || flingRotation <= 0;
+        if (atRest) {
+            // Settle on the nearest minute
+            isFlinging = false;
+            flingRotation = Math.round(Math.max(0F, flingRotation) / DEGREES_PER_MINUTE) * DEGREES_PER_MINUTE;
+        }
+
+        int rotation = (int) flingRotation;
+        if (rotation != totalRotation) {
+            totalRotation = rotation;
+            setTimeMillis(totalRotation * MILLIS_PER_DEGREE);
+            checkDetent();
+        }
+
+        if (isFlinging)
+            Choreographer.getInstance().postFrameCallback(flingFrame);
+    }
+
+    // Haptic feedback when the dial crosses a detent boundary
+    // Rate limited, and the Vibrator call is posted off the touch path
+    private void checkDetent() {
+        if (!isHapticEnabled || vibrator == null) return;
+
+        long detent = remainingMillis / (detentMinutes * 60 * 1000L);
+        if (lastDetent < 0 || detent == lastDetent) {
+            lastDetent = detent;
+            return;
+        }
+        lastDetent = detent;
+
+        long now = SystemClock.uptimeMillis();
+        if (now - lastHapticUptime < minHapticIntervalMillis) return;
+        lastHapticUptime = now;
+
+        Handler handler = getHapticHandler();
+        handler.removeCallbacks(detentVibration);
+        handler.post(detentVibration);
+    }
+
+    // Runs on the haptic thread
+    private void vibrateDetent() {
+        Vibrator vibrator = this.vibrator;
+        if (vibrator == null || !vibrator.hasVibrator()) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+            vibrator.vibrate((VibrationEffect) getDetentEffect());
+        else
+            vibrator.vibrate(DETENT_VIBRATION_MILLIS);
+    }
+
+    private static synchronized Object getDetentEffect() {
+        if (detentEffect == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+                detentEffect = VibrationEffect.createPredefined(VibrationEffect.EFFECT_TICK);
+            else
+                detentEffect = VibrationEffect.createOneShot(DETENT_VIBRATION_MILLIS, VibrationEffect.DEFAULT_AMPLITUDE);
+        }
+        return detentEffect;
+    }
+
+    private static synchronized Handler getHapticHandler() {
+        if (hapticHandler == null) {
+            HandlerThread thread = new HandlerThread("TimerView-Haptics");
+            thread.start();
+            hapticHandler = new Handler(thread.getLooper());
+        }
+        return hapticHandler;
+    }
+
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         vibrator = (Vibrator) getContext().getSystemService(Context.VIBRATOR_SERVICE);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (hapticHandler != null)
+            hapticHandler.removeCallbacks(detentVibration);
+        vibrator = null;
+        stopFling();
+        removeCallbacks(accessibilityValueEvent);
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    /** State **/
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.remainingMillis = remainingMillis;
+        state.totalRotation = totalRotation;
+        state.lastAngle = lastAngle;
+        state.circleColor = circleColor;
+        state.knobColor = knobColor;
+        state.handColor = handColor;
+        state.flags = (isTouchable ? SavedState.FLAG_TOUCHABLE : 0) | (isAmbient ? SavedState.FLAG_AMBIENT : 0);
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable parcelable) {
+        if (!(parcelable instanceof SavedState)) {
+            super.onRestoreInstanceState(parcelable);
+            return;
+        }
+        SavedState state = (SavedState) parcelable;
+        super.onRestoreInstanceState(state.getSuperState());
+
+        totalRotation = state.totalRotation;
+        lastAngle = state.lastAngle;
+        isTouchable = (state.flags & SavedState.FLAG_TOUCHABLE) != 0;
+        isAmbient = (state.flags & SavedState.FLAG_AMBIENT) != 0;
+        circleColor = state.circleColor;
+        knobColor = state.knobColor;
+        handColor = state.handColor;
+        paints = DialResources.obtainPaints(circleColor, knobColor, handColor);
+        drawnMillis = -1;
+        setTimeMillis(state.remainingMillis);
+    }
+
+    // Time, rotation, colors and flags: 32 bytes after the super state
+    static class SavedState extends BaseSavedState {
+        static final int FLAG_TOUCHABLE = 1;
+        static final int FLAG_AMBIENT = 1 << 1;
+
+        long remainingMillis;
+        int totalRotation;
+        int lastAngle;
+        int circleColor, knobColor, handColor;
+        int flags;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            remainingMillis = in.readLong();
+            totalRotation = in.readInt();
+            lastAngle = in.readInt();
+            circleColor = in.readInt();
+            knobColor = in.readInt();
+            handColor = in.readInt();
+            flags = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeLong(remainingMillis);
+            out.writeInt(totalRotation);
+            out.writeInt(lastAngle);
+            out.writeInt(circleColor);
+            out.writeInt(knobColor);
+            out.writeInt(handColor);
+            out.writeInt(this.flags);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+    /** State **/
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        hasFocus = hasWindowFocus;
+        updateAmbientAuto();
+    }
+
+    @Override
+    public void onScreenStateChanged(int screenState) {
+        super.onScreenStateChanged(screenState);
+        isScreenOn = screenState == SCREEN_STATE_ON;
+        updateAmbientAuto();
+    }
+
+    /** Accessibility **/
+    // Exposed as a slider in whole minutes, adjusted one minute per step
+    @Override
+    public CharSequence getAccessibilityClassName() {
+        return SeekBar.class.getName();
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        int minutes = displayedMinutes();
+        int max = accessibilityMaxMinutes();
+        info.setRangeInfo(AccessibilityNodeInfo.RangeInfo.obtain(
+                AccessibilityNodeInfo.RangeInfo.RANGE_TYPE_INT, 0, max, minutes));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R)
+            info.setStateDescription(getMinutesText(minutes));
+        else
+            info.setText(getMinutesText(minutes));
+
+        if (!isTouchable || !isEnabled()) return;
+        if (minutes < max) info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_SCROLL_FORWARD);
+        if (remainingMillis > 0) info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_SCROLL_BACKWARD);
+        info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_SET_PROGRESS);
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setItemCount(accessibilityMaxMinutes());
+        event.setCurrentItemIndex(displayedMinutes());
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        // Newer platforms read the state description instead
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) event.getText().add(getMinutesText(displayedMinutes()));
+    }
+
+    @Override
+    public boolean performAccessibilityAction(int action, Bundle arguments) {
+        if (super.performAccessibilityAction(action, arguments)) return true;
+        if (!isTouchable || !isEnabled()) return false;
+
+        if (action == AccessibilityNodeInfo.ACTION_SCROLL_FORWARD)
+            return setMinutesByAccessibility(displayedMinutes() + 1);
+        if (action == AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD)
+            // From 24:30 one step back is 24:00, from 24:00 it is 23:00
+            return remainingMillis > 0 && setMinutesByAccessibility((remainingMillis - 1) / MILLIS_PER_MINUTE);
+        if (action == android.R.id.accessibilityActionSetProgress && arguments != null) {
+            float value = arguments.getFloat(AccessibilityNodeInfo.ACTION_ARGUMENT_PROGRESS_VALUE, -1F);
+            return value >= 0 && setMinutesByAccessibility(Math.round(value));
+        }
+        return false;
+    }
+
+    // Same as dragging the dial to a whole minute
+    private boolean setMinutesByAccessibility(long minutes) {
+        minutes = Math.max(0, Math.min(minutes, accessibilityMaxMinutes()));
+        stopFling();
+        totalRotation = (int) (minutes * DEGREES_PER_MINUTE);
+        lastAngle = -1;
+        setTimeMillis(minutes * MILLIS_PER_MINUTE);
+        return true;
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // The locale may have changed
+        minutesTexts.clear();
+    }
+
+    private int displayedMinutes() {
+        return (int) Math.min(Integer.MAX_VALUE, remainingMillis / MILLIS_PER_MINUTE);
+    }
+
+    private int accessibilityMaxMinutes() {
+        return Math.max(ACCESSIBILITY_MAX_MINUTES, displayedMinutes());
+    }
+
+    String getMinutesText(int minutes) {
+        String text = minutesTexts.get(minutes);
+        if (text == null) {
+            text = getResources().getQuantityString(R.plurals.timer_view_minutes, minutes, minutes);
+            minutesTexts.put(minutes, text);
+        }
+        return text;
+    }
+
+    private boolean isAccessibilityActive() {
+        return accessibilityManager != null && accessibilityManager.isEnabled();
+    }
+
+    // Called for every time change: one division and compare unless the minute changed,
+    // and then at most one event per recurring event interval (the last value is always sent)
+    private void notifyAccessibilityMinute() {
+        long minute = remainingMillis / MILLIS_PER_MINUTE;
+        if (minute == announcedMinute) return;
+        announcedMinute = minute;
+        if (!isAccessibilityActive()) return;
+
+        long wait = lastAccessibilityEventUptime + ViewConfiguration.getSendRecurringAccessibilityEventsInterval()
+                - SystemClock.uptimeMillis();
+        removeCallbacks(accessibilityValueEvent);
+        if (wait <= 0) sendAccessibilityValueEvent();
+        else postDelayed(accessibilityValueEvent, wait);
+    }
+
+    private void sendAccessibilityValueEvent() {
+        if (!isAccessibilityActive()) return;
+        lastAccessibilityEventUptime = SystemClock.uptimeMillis();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // What a SeekBar sends when its state description changes
+            AccessibilityEvent event = new AccessibilityEvent(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
+            event.setContentChangeTypes(AccessibilityEvent.CONTENT_CHANGE_TYPE_STATE_DESCRIPTION);
+            sendAccessibilityEventUnchecked(event);
+        } else
+            sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
+    /** Accessibility **/
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (isTouchable) {
@@ -239,18 +694,22 @@ public class TimerView extends View {
 
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
+                    // A new touch catches the spinning dial
+                    stopFling();
+                    lastDetent = -1;
+                    if (velocityTracker == null) velocityTracker = VelocityTracker.obtain();
+                    else velocityTracker.clear();
+                    // fall through
                 case MotionEvent.ACTION_MOVE:
-                /*
-                if (vibrator != null && vibrator.hasVibrator()) {
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
-                        vibrator.vibrate(VibrationEffect.createOneShot(10, VibrationEffect.DEFAULT_AMPLITUDE));
-                    else
-                        vibrator.vibrate(5);
-                }*/
                     if (getParent() != null) getParent().requestDisallowInterceptTouchEvent(true);
+                    if (velocityTracker != null) velocityTracker.addMovement(event);
                     handleTouch(x, y);
                     return true;
                 case MotionEvent.ACTION_UP:
+                    if (velocityTracker != null) velocityTracker.addMovement(event);
+                    startFling(x, y);
+                    // fall through
+                case MotionEvent.ACTION_CANCEL:
                     if (getParent() != null) getParent().requestDisallowInterceptTouchEvent(false);
                     lastAngle = -1;
                     return true;
@@ -261,15 +720,13 @@ public class TimerView extends View {
         return super.onTouchEvent(event);
     }
 
-    /*
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        centerX = w / 2f;
-        centerY = h / 2f;
+        updateLayout(w, h);
     }
 
-
+    /*
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         int desiredHeight = MeasureSpec.getSize(heightMeasureSpec);
@@ -282,31 +739,23 @@ public class TimerView extends View {
     }
     */
 
-    // Calculate Layout
-    private void calculateLayout(float graduationRadius) {
-        float radius = Math.min(centerX, centerY);
-        float circleRadius = radius - CIRCLE_MARGIN;
-        float knobRadius = radius - KNOB_MARGIN;
-        float handRadius = radius - HAND_MARGIN;
-        float handWidth = HAND_WIDTH;
-        float handLength = graduationRadius;
-
-        circleBounds.set(centerX - circleRadius, centerY - circleRadius, centerX + circleRadius, centerY + circleRadius);
-        graduationCircleBounds.set(centerX - graduationRadius, centerY - graduationRadius, centerX + graduationRadius, centerY + graduationRadius);
-        knobCircleBounds.set(centerX - knobRadius, centerY - knobRadius, centerX + knobRadius, centerY + knobRadius);
-        handBounds.set(-(handWidth / 2), -handLength, (handWidth / 2), 0);
-        handCircleBounds.set(-(handRadius / 2), handRadius / 2, handRadius / 2, -(handRadius / 2));
+    // Get shared Layout for the view size
+    private void updateLayout(int width, int height) {
+        if (layout != null && layout.width == width && layout.height == height) return;
+        layout = DialResources.obtainLayout(width, height);
+        centerX = layout.centerX;
+        centerY = layout.centerY;
     }
 
     // Draw Circle and Arc
     private void drawCircle(Canvas canvas, float sweepAngle) {
         // Draw white circle
-        canvas.drawArc(circleBounds, 0, 360, true, whiteCircle);
+        canvas.drawArc(layout.circleBounds, 0, 360, true, paints.whiteCircle);
         // Draw red circle
-        canvas.drawArc(circleBounds, -90, sweepAngle, true, redCircle);
+        canvas.drawArc(layout.circleBounds, -90, sweepAngle, true, paints.redCircle);
         // Draw knob circle
-        canvas.drawOval(knobCircleBounds, knobCircle);
-        canvas.drawOval(knobCircleBounds, knobStroke);
+        canvas.drawOval(layout.knobCircleBounds, paints.knobCircle);
+        canvas.drawOval(layout.knobCircleBounds, paints.knobStroke);
     }
 
     // Draw Minute Hand
@@ -314,47 +763,48 @@ public class TimerView extends View {
         canvas.save();
         canvas.translate(centerX, centerY);
         canvas.rotate(sweepAngle);
-        canvas.drawRoundRect(handBounds, HAND_RADIUS, HAND_RADIUS, hand);
-        canvas.drawOval(handCircleBounds, handCircle);
+        canvas.drawRoundRect(layout.handBounds, layout.handCornerRadius, layout.handCornerRadius, paints.hand);
+        canvas.drawOval(layout.handCircleBounds, paints.handCircle);
         canvas.restore();
     }
 
-    // Draw hand graduation(marks)
-    private void drawGraduation(Canvas canvas, float graduationRadius) {
+    // Ambient dial: outline, stroked arc and hand line, ticks from the shared layer
+    private void drawAmbient(Canvas canvas, float sweepAngle) {
+        canvas.drawOval(layout.circleBounds, paints.ambientOutline);
+        canvas.drawArc(layout.circleBounds, -90, Math.min(sweepAngle, 360F), false, paints.ambientArc);
+
         canvas.save();
         canvas.translate(centerX, centerY);
-
-        for (int i = 0; i < 60; i++) {
-            tick.setColor(Color.GRAY);
-            float startY = -graduationRadius;
-            float stopY = -graduationRadius - 20F;
-
-            // Draw longer graduation(marks) every 5 minutes
-            if (i % 5 == 0) {
-                tick.setColor(Color.DKGRAY);
-                startY = -graduationRadius - 20F;
-                stopY = -graduationRadius + 20F;
-            }
-
-            canvas.drawLine(0, startY, 0, stopY, tick);
-            canvas.rotate(6);
-        }
+        canvas.rotate(sweepAngle);
+        canvas.drawLine(0, 0, 0, layout.handBounds.top, paints.ambientHand);
         canvas.restore();
+        drawGraduation(canvas);
+    }
+
+    // Draw hand graduation(marks) from the shared tick layer
+    private void drawGraduation(Canvas canvas) {
+        Bitmap tickLayer = layout.getTickLayer();
+        if (tickLayer != null)
+            canvas.drawBitmap(tickLayer, 0, 0, null);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        centerX = getWidth() / 2F;
-        centerY = getHeight() / 2F;
-        float graduationRadius = Math.min(centerX, centerY) - GRADUATION_MARGIN;
-
-        calculateLayout(graduationRadius);
-        float sweepAngle = 360 * remainingRatio;
+        updateLayout(getWidth(), getHeight());
+        // Angle is only derived here; over 60 minutes the arc stays full and the hand wraps
+        float sweepAngle = remainingMillis >= MILLIS_PER_TURN
+                ? 360F + (remainingMillis % MILLIS_PER_TURN) * 360F / MILLIS_PER_TURN
+                : remainingMillis * 360F / MILLIS_PER_TURN;
+        drawnMillis = remainingMillis;
 
+        if (isAmbient) {
+            drawAmbient(canvas, sweepAngle);
+            return;
+        }
         drawCircle(canvas, sweepAngle);
         drawHand(canvas, sweepAngle);
-        drawGraduation(canvas, graduationRadius);
+        drawGraduation(canvas);
     }
 }
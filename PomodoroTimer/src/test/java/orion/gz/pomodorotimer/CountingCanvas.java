@@ -0,0 +1,149 @@
+package orion.gz.pomodorotimer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Bitmap canvas that counts draw operations while still rendering them.
+ * Used to check that rendering changes lower (or at least keep) the per-frame op count.
+ */
+class CountingCanvas extends Canvas {
+    private int drawOps;
+
+    CountingCanvas(Bitmap bitmap) {
+        super(bitmap);
+    }
+
+    int getDrawOps() {
+        return drawOps;
+    }
+
+    void reset() {
+        drawOps = 0;
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        drawOps++;
+        super.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+    }
+
+    @Override
+    public void drawArc(float left, float top, float right, float bottom, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        drawOps++;
+        super.drawArc(left, top, right, bottom, startAngle, sweepAngle, useCenter, paint);
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        drawOps++;
+        super.drawOval(oval, paint);
+    }
+
+    @Override
+    public void drawOval(float left, float top, float right, float bottom, Paint paint) {
+        drawOps++;
+        super.drawOval(left, top, right, bottom, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        drawOps++;
+        super.drawCircle(cx, cy, radius, paint);
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        drawOps++;
+        super.drawRoundRect(rect, rx, ry, paint);
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, Paint paint) {
+        drawOps++;
+        super.drawRoundRect(left, top, right, bottom, rx, ry, paint);
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        drawOps++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        drawOps++;
+        super.drawRect(left, top, right, bottom, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        drawOps++;
+        super.drawLine(startX, startY, stopX, stopY, paint);
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        drawOps++;
+        super.drawLines(pts, offset, count, paint);
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        drawOps++;
+        super.drawLines(pts, paint);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        drawOps++;
+        super.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        drawOps++;
+        super.drawBitmap(bitmap, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        drawOps++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        drawOps++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        drawOps++;
+        super.drawBitmap(bitmap, matrix, paint);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        drawOps++;
+        super.drawText(text, x, y, paint);
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        drawOps++;
+        super.drawPaint(paint);
+    }
+
+    @Override
+    public void drawColor(int color) {
+        drawOps++;
+        super.drawColor(color);
+    }
+}
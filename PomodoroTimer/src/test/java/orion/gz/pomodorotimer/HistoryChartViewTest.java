@@ -0,0 +1,119 @@
+package orion.gz.pomodorotimer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Min/max downsampling, path caching and touch handling of HistoryChartView.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HistoryChartViewTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Test
+    public void pyramid_matchesScan() {
+        Random random = new Random(3);
+        float[] values = new float[3653];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt(240);
+        MinMaxPyramid pyramid = new MinMaxPyramid(values);
+
+        float[] out = new float[2];
+        for (int t = 0; t < 1000; t++) {
+            int from = random.nextInt(values.length);
+            int to = from + 1 + random.nextInt(values.length - from);
+            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            pyramid.query(from, to, out);
+            assertEquals(min, out[0], 0F);
+            assertEquals(max, out[1], 0F);
+        }
+    }
+
+    @Test
+    public void paths_rebuiltOnlyOnChange() {
+        // Ten years of daily minutes on a 400 px chart
+        long[] days = new long[3653];
+        float[] minutes = new float[days.length];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = i * DAY;
+            minutes[i] = i % 7 == 0 ? 0 : 25 * (i % 5);
+        }
+        HistoryChartView view = new HistoryChartView(ApplicationProvider.getApplicationContext());
+        view.setData(days, minutes);
+        view.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, 400, 200);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888));
+
+        view.draw(canvas);
+        view.draw(canvas);
+        assertEquals(1, view.pathBuilds);
+
+        // Pinch in around the center, then pan to the start
+        long span = view.getViewportEnd() - view.getViewportStart();
+        view.zoom(4F, 200F);
+        assertTrue(view.getViewportEnd() - view.getViewportStart() < span / 3);
+        view.pan(-1_000_000F);
+        assertEquals(0L, view.getViewportStart());
+        view.draw(canvas);
+        view.draw(canvas);
+        assertEquals(2, view.pathBuilds);
+
+        // Zoomed in past the minimum span
+        view.zoom(10_000F, 0F);
+        assertEquals(7 * DAY, view.getViewportEnd() - view.getViewportStart());
+    }
+
+    @Test
+    public void verticalDrag_isLeftToParent() {
+        boolean[] disallowed = {false};
+        FrameLayout parent = new FrameLayout(ApplicationProvider.getApplicationContext()) {
+            @Override
+            public void requestDisallowInterceptTouchEvent(boolean disallow) {
+                disallowed[0] = disallow;
+                super.requestDisallowInterceptTouchEvent(disallow);
+            }
+        };
+        HistoryChartView view = new HistoryChartView(parent.getContext());
+        view.setData(new long[]{0, DAY, 2 * DAY}, new float[]{1, 2, 3});
+        parent.addView(view);
+        view.layout(0, 0, 400, 200);
+
+        // A ScrollView parent must still scroll when the drag starts on the chart
+        drag(view, 0F, 150F);
+        assertFalse(disallowed[0]);
+
+        drag(view, -150F, 0F);
+        assertTrue(disallowed[0]);
+    }
+
+    private static void drag(View view, float dx, float dy) {
+        long time = SystemClock.uptimeMillis();
+        view.onTouchEvent(MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, 200F, 20F, 0));
+        for (int step = 1; step <= 5; step++)
+            view.onTouchEvent(MotionEvent.obtain(time, time + step * 10, MotionEvent.ACTION_MOVE,
+                    200F + dx * step / 5, 20F + dy * step / 5, 0));
+        view.onTouchEvent(MotionEvent.obtain(time, time + 60, MotionEvent.ACTION_UP, 200F + dx, 20F + dy, 0));
+    }
+}
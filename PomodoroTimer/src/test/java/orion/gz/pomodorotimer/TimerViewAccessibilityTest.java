@@ -0,0 +1,131 @@
+package orion.gz.pomodorotimer;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Looper;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Range info, minute step actions and rate-limited announcements of TimerView.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TimerViewAccessibilityTest {
+    private static final long MINUTE = 60_000L;
+
+    // Value events sent, and the state description they announced last
+    private int events = 0;
+    private String announced;
+
+    private TimerView createView() {
+        Context context = ApplicationProvider.getApplicationContext();
+        shadowOf((AccessibilityManager) context.getSystemService(Context.ACCESSIBILITY_SERVICE)).setEnabled(true);
+        TimerView view = new TimerView(context);
+        view.setAccessibilityDelegate(new View.AccessibilityDelegate() {
+            @Override
+            public void sendAccessibilityEventUnchecked(View host, AccessibilityEvent event) {
+                // Layout passes of the attached view send content changes of their own
+                if ((event.getContentChangeTypes() & AccessibilityEvent.CONTENT_CHANGE_TYPE_STATE_DESCRIPTION) != 0) {
+                    events++;
+                    announced = String.valueOf(host.createAccessibilityNodeInfo().getStateDescription());
+                }
+                super.sendAccessibilityEventUnchecked(host, event);
+            }
+        });
+        // Attached, so the throttled event the view posts to itself runs
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setContentView(view);
+        idle();
+        return view;
+    }
+
+    private void idle() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void announcements_onlyOnMinuteChange() {
+        TimerView view = createView();
+        view.setTimeMillis(25 * MINUTE + 30_000L);
+        idle();
+        int afterFirst = events;
+        assertEquals(1, afterFirst);
+
+        // A second-by-second countdown within one minute stays silent
+        for (long second = 29; second >= 1; second--)
+            view.setTimeMillis(25 * MINUTE + second * 1000L);
+        idle();
+        assertEquals(afterFirst, events);
+
+        view.setTimeMillis(24 * MINUTE + 59_000L);
+        idle();
+        assertEquals(afterFirst + 1, events);
+
+        // A fast drag over many minutes: the first change goes out at once, the other
+        // twenty collapse into exactly one throttled event carrying the last value
+        for (long minute = 30; minute <= 50; minute++)
+            view.setTimeMillis(minute * MINUTE);
+        assertEquals(afterFirst + 2, events);
+        assertEquals("30 minutes", announced);
+        idle();
+        assertEquals(afterFirst + 3, events);
+        assertEquals("50 minutes", announced);
+    }
+
+    @Test
+    public void rangeInfo_andMinuteSteps() {
+        TimerView view = createView();
+        view.setTimeMillis(24 * MINUTE + 30_000L);
+
+        AccessibilityNodeInfo info = view.createAccessibilityNodeInfo();
+        assertEquals(24F, info.getRangeInfo().getCurrent(), 0F);
+        assertEquals(0F, info.getRangeInfo().getMin(), 0F);
+        assertEquals("24 minutes", info.getStateDescription().toString());
+        assertTrue(info.getActionList().contains(AccessibilityNodeInfo.AccessibilityAction.ACTION_SCROLL_FORWARD));
+
+        assertTrue(view.performAccessibilityAction(AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD, null));
+        assertEquals(24 * MINUTE, view.getTimeMillis());
+        assertTrue(view.performAccessibilityAction(AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD, null));
+        assertEquals(23 * MINUTE, view.getTimeMillis());
+        assertTrue(view.performAccessibilityAction(AccessibilityNodeInfo.ACTION_SCROLL_FORWARD, null));
+        assertEquals(24 * MINUTE, view.getTimeMillis());
+
+        Bundle arguments = new Bundle();
+        arguments.putFloat(AccessibilityNodeInfo.ACTION_ARGUMENT_PROGRESS_VALUE, 50F);
+        assertTrue(view.performAccessibilityAction(android.R.id.accessibilityActionSetProgress, arguments));
+        assertEquals(50 * MINUTE, view.getTimeMillis());
+
+        // A running (untouchable) dial cannot be adjusted
+        view.setTouchable(false);
+        assertFalse(view.performAccessibilityAction(AccessibilityNodeInfo.ACTION_SCROLL_FORWARD, null));
+        assertFalse(view.createAccessibilityNodeInfo().getActionList()
+                .contains(AccessibilityNodeInfo.AccessibilityAction.ACTION_SCROLL_FORWARD));
+    }
+
+    @Test
+    public void minutesText_isCachedPerValue() {
+        TimerView view = createView();
+        assertSame(view.getMinutesText(25), view.getMinutesText(25));
+        assertEquals("1 minute", view.getMinutesText(1));
+    }
+}
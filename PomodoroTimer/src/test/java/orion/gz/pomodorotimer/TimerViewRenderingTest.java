@@ -0,0 +1,226 @@
+package orion.gz.pomodorotimer;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rendering regression tests for TimerView, run on the JVM with Robolectric native graphics.
+ *
+ * Each case is compared pixel by pixel with a golden PNG in src/test/resources/golden.
+ * Record (or re-record) goldens with:
+ * ./gradlew :PomodoroTimer:testDebugUnitTest -PrecordGoldens=true
+ * PomodoroTimer/record-goldens.sh records them against the renderer the test was written for
+ * and lists what later renderer changes moved, for review before re-recording.
+ * Outside record mode a missing golden fails the test. Every case is checked before reporting;
+ * renderings of missing and differing cases go to build/golden-candidates and build/golden-failures.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 34)
+public class TimerViewRenderingTest {
+    // Upper bound of draw operations per frame, lower it when rendering gets cheaper
+    private static final int DRAW_OP_BUDGET = 7;
+
+    private static final int[][] SIZES = {{300, 300}, {900, 900}, {1200, 1200}, {900, 600}};
+    private static final long[] TIMES = {0L, 7 * 60_000L + 30_000L, 25 * 60_000L, 60 * 60_000L, 90 * 60_000L};
+
+    private final boolean recordGoldens = Boolean.parseBoolean(System.getProperty("timerview.recordGoldens", "false"));
+    private final File goldenDir = new File(System.getProperty("timerview.goldenDir", "src/test/resources/golden"));
+    private final File outputDir = new File(System.getProperty("timerview.outputDir", "build"));
+
+    private TimerView createView(int width, int height, long millis) {
+        Context context = ApplicationProvider.getApplicationContext();
+        TimerView view = new TimerView(context);
+        view.setTimeMillis(millis);
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+        return view;
+    }
+
+    private static String goldenName(int width, int height, long millis) {
+        return "timerview_" + width + "x" + height + "_" + millis + ".png";
+    }
+
+    private static void writePng(Bitmap bitmap, File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Cannot create " + parent);
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        }
+    }
+
+    @Test
+    public void render_matchesGoldens() throws IOException {
+        List<String> missing = new ArrayList<>();
+        List<String> different = new ArrayList<>();
+        for (int[] size : SIZES) {
+            for (long millis : TIMES) {
+                Bitmap actual = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+                createView(size[0], size[1], millis).draw(new CountingCanvas(actual));
+
+                String name = goldenName(size[0], size[1], millis);
+                File golden = new File(goldenDir, name);
+                if (recordGoldens) {
+                    writePng(actual, golden);
+                    continue;
+                }
+                if (!golden.exists()) {
+                    writePng(actual, new File(outputDir, "golden-candidates/" + name));
+                    missing.add(name);
+                    continue;
+                }
+
+                Bitmap expected = BitmapFactory.decodeFile(golden.getAbsolutePath());
+                if (expected == null || !expected.sameAs(actual)) {
+                    writePng(actual, new File(outputDir, "golden-failures/" + name));
+                    different.add(name);
+                }
+            }
+        }
+        assertTrue("Missing goldens " + missing + ", record with -PrecordGoldens=true", missing.isEmpty());
+        assertTrue("Rendering differs from goldens " + different, different.isEmpty());
+    }
+
+    @Test
+    public void render_smallDialKeepsHandCap() {
+        // 300dp on a 2.625x phone and a list row: both below the design radius
+        for (int size : new int[]{786, 120}) {
+            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            createView(size, size, 0L).draw(new Canvas(bitmap));
+
+            // Beside the (vertical) hand, inside the cap
+            int center = size / 2;
+            int offset = Math.max(2, size / 40);
+            assertEquals("Hand cap missing at " + size + " px", 0xFFDDDDDD, bitmap.getPixel(center + offset, center));
+        }
+    }
+
+    @Test
+    public void render_staysWithinDrawOpBudget() {
+        for (int[] size : SIZES) {
+            for (long millis : TIMES) {
+                Bitmap bitmap = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+                CountingCanvas canvas = new CountingCanvas(bitmap);
+                createView(size[0], size[1], millis).draw(canvas);
+
+                assertTrue("Draw ops " + canvas.getDrawOps() + " over budget for " + goldenName(size[0], size[1], millis),
+                        canvas.getDrawOps() <= DRAW_OP_BUDGET);
+            }
+        }
+    }
+
+    @Test
+    public void render_drawOpsDoNotDependOnTime() {
+        int expected = -1;
+        for (long millis : TIMES) {
+            Bitmap bitmap = Bitmap.createBitmap(900, 900, Bitmap.Config.ARGB_8888);
+            CountingCanvas canvas = new CountingCanvas(bitmap);
+            createView(900, 900, millis).draw(canvas);
+
+            if (expected < 0) expected = canvas.getDrawOps();
+            assertEquals("Draw ops at " + millis + " ms", expected, canvas.getDrawOps());
+        }
+    }
+
+    @Test
+    public void ambient_drawsLessAndSkipsInvisibleChanges() {
+        Bitmap bitmap = Bitmap.createBitmap(900, 900, Bitmap.Config.ARGB_8888);
+        CountingCanvas normal = new CountingCanvas(bitmap);
+        createView(900, 900, 25 * 60_000L).draw(normal);
+
+        TimerView view = createView(900, 900, 25 * 60_000L);
+        view.setAmbientMode(true);
+        CountingCanvas ambient = new CountingCanvas(bitmap);
+        view.draw(ambient);
+        assertTrue("Ambient draw ops " + ambient.getDrawOps(), ambient.getDrawOps() < normal.getDrawOps());
+
+        // Arc radius is 300 px, one second moves the arc end about half a pixel
+        view.setTimeMillis(25 * 60_000L + 30_000L);
+        view.draw(ambient);
+        assertFalse(view.isVisibleChange(25 * 60_000L + 29_000L));
+        assertTrue(view.isVisibleChange(25 * 60_000L + 28_000L));
+        // Minute changes always redraw
+        view.setTimeMillis(25 * 60_000L + 500L);
+        view.draw(ambient);
+        assertTrue(view.isVisibleChange(25 * 60_000L - 100L));
+    }
+
+    @Test
+    public void savedState_restoresTimeRotationAndColors() {
+        TimerView view = createView(900, 900, 47 * 60_000L + 10_000L);
+        view.setCirlceColor(0xFF112233);
+        view.setTouchable(false);
+        Parcelable saved = view.onSaveInstanceState();
+
+        // Through a parcel, as on a configuration change
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(saved, 0);
+        parcel.setDataPosition(0);
+        Parcelable restored = parcel.readParcelable(TimerView.class.getClassLoader());
+        parcel.recycle();
+
+        TimerView recreated = createView(900, 900, 25 * 60_000L);
+        recreated.onRestoreInstanceState(restored);
+        assertEquals(47 * 60_000L + 10_000L, recreated.getTimeMillis());
+
+        Bitmap expected = Bitmap.createBitmap(900, 900, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(expected));
+        Bitmap actual = Bitmap.createBitmap(900, 900, Bitmap.Config.ARGB_8888);
+        recreated.draw(new Canvas(actual));
+        assertTrue("Restored view draws a different frame", expected.sameAs(actual));
+    }
+
+    @Test
+    public void trimMemory_releasesTickLayersAndRebuildsThem() {
+        Bitmap bitmap = Bitmap.createBitmap(900, 900, Bitmap.Config.ARGB_8888);
+        TimerView view = createView(900, 900, 25 * 60_000L);
+        view.draw(new Canvas(bitmap));
+        assertTrue(TimerView.getCacheBytes().get("dial.tickLayers") >= 900 * 900 * 4);
+
+        DialResources.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(0L, (long) TimerView.getCacheBytes().get("dial.tickLayers"));
+
+        // Rebuilt lazily on the next draw
+        view.draw(new Canvas(bitmap));
+        assertTrue(TimerView.getCacheBytes().get("dial.tickLayers") >= 900 * 900 * 4);
+    }
+
+    @Test
+    public void setTime_roundTripsMillis() {
+        TimerView view = createView(900, 900, 0);
+        for (long millis : TIMES) {
+            view.setTimeMillis(millis);
+            assertEquals(millis, view.getTimeMillis());
+        }
+        view.setTime(90, 15);
+        assertEquals((90 * 60 + 15) * 1000L, view.getTimeMillis());
+        assertEquals(1, view.getTurns());
+    }
+}
@@ -0,0 +1,211 @@
+package orion.app.timer;
+
+import android.app.Instrumentation;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tick-to-pixel latency of the timer update pipeline, on a device or emulator (no GPU needed).
+ *
+ * A background thread stands in for the TimerService worker and sends TIMER_UPDATE broadcasts
+ * for a simulated session. Each tick is timestamped at four hops:
+ * sent (worker) -> applied (MainActivity receiver, TimerView and TextView updated)
+ * -> drawn (view tree draw pass) -> frame done (FrameMetrics, intended vsync + total duration).
+ * Percentiles are logged under "TickLatency" and reported as instrumentation status:
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=orion.app.timer.TickLatencyBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickLatencyBenchmark {
+    private static final String TAG = "TickLatency";
+    // Simulated session: one displayed second per tick, accelerated so the run takes about a minute
+    private static final int WARMUP_TICKS = 20;
+    private static final int TICKS = 240;
+    private static final long TICK_INTERVAL_MILLIS = 250;
+    private static final long SESSION_MILLIS = 25 * 60 * 1000L;
+    private static final String EXTRA_TICK = "BENCHMARK_TICK";
+
+    // All timestamps are System.nanoTime, the FrameMetrics time base
+    private final long[] sent = new long[TICKS];
+    private final long[] applied = new long[TICKS];
+    private final List<Long> draws = new ArrayList<>();
+    // {vsync, frame done} per frame
+    private final List<long[]> frames = new ArrayList<>();
+
+    @Test
+    public void tickToFrameLatency() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        LocalBroadcastManager broadcasts = LocalBroadcastManager.getInstance(context);
+
+        // Registered after MainActivity's receiver, so it runs once the views were updated
+        BroadcastReceiver probe = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                int tick = intent.getIntExtra(EXTRA_TICK, -1);
+                if (tick >= 0) applied[tick] = System.nanoTime();
+            }
+        };
+
+        HandlerThread frameThread = new HandlerThread("TickLatency-Frames");
+        frameThread.start();
+        HandlerThread senderThread = new HandlerThread("TickLatency-Sender");
+        senderThread.start();
+
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            scenario.onActivity(activity -> {
+                broadcasts.registerReceiver(probe, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_UPDATE));
+                View root = activity.getWindow().getDecorView();
+                root.getViewTreeObserver().addOnDrawListener(onDraw);
+                activity.getWindow().addOnFrameMetricsAvailableListener(onFrame, new Handler(frameThread.getLooper()));
+            });
+
+            // Warm up: first update restores the layout, later ones JIT the path
+            sendTicks(broadcasts, senderThread, -WARMUP_TICKS, 0);
+            sendTicks(broadcasts, senderThread, 0, TICKS);
+            // Let the last frames be reported
+            SystemClock.sleep(500);
+
+            scenario.onActivity(activity -> {
+                broadcasts.unregisterReceiver(probe);
+                activity.getWindow().getDecorView().getViewTreeObserver().removeOnDrawListener(onDraw);
+                activity.getWindow().removeOnFrameMetricsAvailableListener(onFrame);
+            });
+        } finally {
+            senderThread.quitSafely();
+            frameThread.quitSafely();
+        }
+
+        report();
+    }
+
+    private final ViewTreeObserver.OnDrawListener onDraw = () -> {
+        synchronized (draws) {
+            draws.add(System.nanoTime());
+        }
+    };
+
+    private final Window.OnFrameMetricsAvailableListener onFrame = (window, metrics, dropCount) -> {
+        long intendedVsync = metrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP);
+        long vsync = metrics.getMetric(FrameMetrics.VSYNC_TIMESTAMP);
+        long done = intendedVsync + metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        synchronized (frames) {
+            frames.add(new long[]{vsync, done});
+        }
+    };
+
+    // Ticks [from, to) on the sender thread, negative ticks are not recorded
+    private void sendTicks(LocalBroadcastManager broadcasts, HandlerThread senderThread, int from, int to)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Handler sender = new Handler(senderThread.getLooper());
+        long start = SystemClock.uptimeMillis();
+        for (int tick = from; tick < to; tick++) {
+            int index = tick;
+            sender.postAtTime(() -> {
+                Intent intent = new Intent(TimerService.BROADCAST_ACTION_TIMER_UPDATE);
+                intent.putExtra(TimerService.BROADCAST_EXTRA_REMAINING_TIME, SESSION_MILLIS - (index + WARMUP_TICKS) * 1000L);
+                intent.putExtra(EXTRA_TICK, index);
+                if (index >= 0) sent[index] = System.nanoTime();
+                broadcasts.sendBroadcast(intent);
+            }, start + (tick - from) * TICK_INTERVAL_MILLIS);
+        }
+        sender.postAtTime(done::countDown, start + (to - from) * TICK_INTERVAL_MILLIS);
+        assertTrue(done.await((to - from) * TICK_INTERVAL_MILLIS + 10_000, TimeUnit.MILLISECONDS));
+    }
+
+    // Match every tick with the first draw and frame after it was applied
+    private void report() {
+        long[] drawTimes;
+        synchronized (draws) {
+            drawTimes = new long[draws.size()];
+            for (int i = 0; i < drawTimes.length; i++) drawTimes[i] = draws.get(i);
+        }
+        List<long[]> frameTimes;
+        synchronized (frames) {
+            frameTimes = new ArrayList<>(frames);
+        }
+
+        long[] dispatch = new long[TICKS], draw = new long[TICKS], frame = new long[TICKS], total = new long[TICKS];
+        int count = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (sent[tick] == 0 || applied[tick] == 0) continue;
+            long drawn = firstAfter(drawTimes, applied[tick]);
+            long frameDone = 0;
+            for (long[] f : frameTimes)
+                if (f[0] > applied[tick] && (frameDone == 0 || f[1] < frameDone)) frameDone = f[1];
+            if (drawn == 0 || frameDone == 0) continue;
+
+            dispatch[count] = applied[tick] - sent[tick];
+            draw[count] = drawn - applied[tick];
+            frame[count] = frameDone - drawn;
+            total[count] = frameDone - sent[tick];
+            count++;
+        }
+
+        Bundle results = new Bundle();
+        results.putInt("ticks", count);
+        String summary = line("sent->applied", dispatch, count, results)
+                + line("applied->drawn", draw, count, results)
+                + line("drawn->frame", frame, count, results)
+                + line("tick->frame", total, count, results);
+        Log.i(TAG, "Measured " + count + "/" + TICKS + " ticks\n" + summary);
+
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        results.putString(Instrumentation.REPORT_KEY_STREAMRESULT, summary);
+        instrumentation.sendStatus(0, results);
+
+        // Every tick should reach the screen, otherwise the numbers above are meaningless
+        assertTrue("Only " + count + " of " + TICKS + " ticks reached a frame", count >= TICKS * 9 / 10);
+    }
+
+    private static long firstAfter(long[] sorted, long time) {
+        for (long value : sorted)
+            if (value >= time) return value;
+        return 0;
+    }
+
+    private static String line(String hop, long[] values, int count, Bundle results) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        double p50 = percentile(sorted, 50), p90 = percentile(sorted, 90), p99 = percentile(sorted, 99);
+        double max = count == 0 ? 0 : sorted[count - 1] / 1e6;
+        results.putDouble(hop + ".p50_ms", p50);
+        results.putDouble(hop + ".p90_ms", p90);
+        results.putDouble(hop + ".p99_ms", p99);
+        results.putDouble(hop + ".max_ms", max);
+        return String.format(Locale.US, "%-14s p50=%.2f ms p90=%.2f ms p99=%.2f ms max=%.2f ms%n", hop, p50, p90, p99, max);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,205 @@
+package orion.app.timer;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import java.io.IOException;
+import java.util.Collections;
+
+// Brings a running session back after a reboot
+// Also re-arms the session schedule.
+// Disabled in the manifest and only enabled while a session runs or one is
+// scheduled, so an idle app costs nothing at boot. elapsedRealtime restarts at boot, so the persisted
+// wall clock deadline is reconciled against the current time.
+// A mediaPlayback foreground service may not be started from BOOT_COMPLETED (Android 15+), so
+// the session is not resumed here: a notification starts the service when tapped, and until
+// then an exact alarm back to this receiver ends the session at its deadline.
+public class BootReceiver extends BroadcastReceiver {
+    private static final String TAG = "BootReceiver";
+    // Sent by the alarm armed at boot when the rebased deadline comes
+    static final String ACTION_SESSION_DEADLINE = "orion.app.timer.action.SESSION_DEADLINE";
+    private static final int REQUEST_DEADLINE = 30;
+    private static final int REQUEST_RESUME = 31;
+
+    // Reconcile Results
+    static final int RESULT_NONE = 0;
+    static final int RESULT_RESUMED = 1;
+    static final int RESULT_FINISHED = 2;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action) && !ACTION_SESSION_DEADLINE.equals(action)) return;
+
+        PendingResult pendingResult = goAsync();
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                handle(appContext, action, SessionHistory.get(appContext));
+            } finally {
+                pendingResult.finish();
+            }
+        }, TAG).start();
+    }
+
+    // Body of onReceive, off the main thread
+    static void handle(Context context, String action, SessionHistory history) {
+        SessionSchedule schedule = SessionSchedule.get(context);
+        int result;
+        if (ACTION_SESSION_DEADLINE.equals(action)) {
+            result = finishIfDue(context, history) ? RESULT_FINISHED : RESULT_NONE;
+        } else {
+            // Alarms do not survive a reboot
+            schedule.arm();
+            result = reconcile(context, history);
+            Log.d(TAG, "Reconciled session after boot: " + result);
+            if (result == RESULT_RESUMED) {
+                armDeadline(context);
+                showResumeNotification(context);
+            }
+        }
+        if (result == RESULT_FINISHED) {
+            NotificationManagerCompat.from(context).cancel(TimerService.NOTIFICATION_ID);
+            showEndedNotification(context);
+            setEnabled(context, !schedule.isEmpty());
+        }
+    }
+
+    // Rebase the persisted session onto this boot, or finish it if the deadline passed
+    // Only the session itself is touched, the history is appended to, never replayed
+    static int reconcile(Context context, SessionHistory history) {
+        SharedPreferences prefs = context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(TimerService.KEY_IS_RUNNING, false)) return RESULT_NONE;
+
+        int bootCount = TimerService.getBootCount(context);
+        // Same boot, e.g. the app was updated: the service's own restore applies
+        if (prefs.getInt(TimerService.KEY_BOOT_COUNT, -1) == bootCount) return RESULT_RESUMED;
+
+        SharedPreferences.Editor editor = prefs.edit().putInt(TimerService.KEY_BOOT_COUNT, bootCount);
+        if (prefs.getBoolean(TimerService.KEY_IS_PAUSED, false)) {
+            // Paused time is not counted, nothing to rebase
+            editor.commit();
+            return RESULT_RESUMED;
+        }
+
+        long remainingMillis = prefs.getLong(TimerService.KEY_DEADLINE_WALL_TIME, 0L) - System.currentTimeMillis();
+        if (remainingMillis > 0) {
+            editor.putLong(TimerService.KEY_DEADLINE_ELAPSED, SystemClock.elapsedRealtime() + remainingMillis);
+            editor.commit();
+            return RESULT_RESUMED;
+        }
+
+        // Ran out while the device was off
+        finish(prefs, editor, history);
+        return RESULT_FINISHED;
+    }
+
+    // Deadline alarm: end the session unless the service took it over (it cancels the alarm)
+    static boolean finishIfDue(Context context, SessionHistory history) {
+        SharedPreferences prefs = context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(TimerService.KEY_IS_RUNNING, false) || prefs.getBoolean(TimerService.KEY_IS_PAUSED, false))
+            return false;
+        long deadlineWallMillis = prefs.getLong(TimerService.KEY_DEADLINE_WALL_TIME, 0L);
+        if (deadlineWallMillis == 0 || deadlineWallMillis > System.currentTimeMillis()) return false;
+        finish(prefs, prefs.edit(), history);
+        return true;
+    }
+
+    // Record the session as completed and clear it
+    private static void finish(SharedPreferences prefs, SharedPreferences.Editor editor, SessionHistory history) {
+        long startWallMillis = prefs.getLong(TimerService.KEY_START_WALL_TIME, 0L);
+        long durationMillis = prefs.getLong(TimerService.KEY_DURATION_MILLIS, 0L);
+        SessionRecord record = new SessionRecord(SessionRecord.newId(startWallMillis), startWallMillis, durationMillis,
+                true, prefs.getLong(TimerService.KEY_SUBJECT_ID, Subject.NONE));
+        try {
+            history.appendAll(Collections.singletonList(record));
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot record session " + record.id, e);
+        }
+        editor.putBoolean(TimerService.KEY_IS_RUNNING, false)
+                .putBoolean(TimerService.KEY_IS_PAUSED, false)
+                .putLong(TimerService.KEY_DEADLINE_ELAPSED, 0L)
+                .putLong(TimerService.KEY_DEADLINE_WALL_TIME, 0L)
+                .commit();
+    }
+
+    // Exact, so it is delivered on time in doze; a paused session has no deadline
+    private static void armDeadline(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        long deadlineWallMillis = prefs.getLong(TimerService.KEY_DEADLINE_WALL_TIME, 0L);
+        if (prefs.getBoolean(TimerService.KEY_IS_PAUSED, false) || deadlineWallMillis == 0) return;
+
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        PendingIntent pending = deadlineIntent(context);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms())
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, deadlineWallMillis, pending);
+        else
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, deadlineWallMillis, pending);
+    }
+
+    // Called by the service once it restored the session and follows the deadline itself
+    static void cancelDeadline(Context context) {
+        context.getSystemService(AlarmManager.class).cancel(deadlineIntent(context));
+    }
+
+    private static PendingIntent deadlineIntent(Context context) {
+        Intent intent = new Intent(context, BootReceiver.class).setAction(ACTION_SESSION_DEADLINE);
+        return PendingIntent.getBroadcast(context, REQUEST_DEADLINE, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    // Enabled while a session runs or the schedule is not empty
+    static void setEnabled(Context context, boolean enabled) {
+        context.getPackageManager().setComponentEnabledSetting(new ComponentName(context, BootReceiver.class),
+                enabled ? PackageManager.COMPONENT_ENABLED_STATE_ENABLED : PackageManager.COMPONENT_ENABLED_STATE_DISABLED,
+                PackageManager.DONT_KILL_APP);
+    }
+
+    // Same id as the service notification, which replaces it once the service runs
+    // A tap on a notification may start a foreground service from the background
+    private static void showResumeNotification(Context context) {
+        Intent intent = new Intent(context, TimerService.class);
+        PendingIntent resume = PendingIntent.getForegroundService(context, REQUEST_RESUME, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, TimerService.CHANNEL_ID)
+                .setSmallIcon(R.drawable.outline_hourglass_top_black_24)
+                .setContentTitle("Timer Session")
+                .setContentText("Session restored after restart, tap to show the countdown")
+                .setContentIntent(resume)
+                .setAutoCancel(true);
+        try {
+            NotificationManagerCompat.from(context).notify(TimerService.NOTIFICATION_ID, builder.build());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Notification permission not granted", e);
+        }
+    }
+
+    // Channels survive reboots, the service created it before the session started
+    private static void showEndedNotification(Context context) {
+        boolean isMuted = context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(TimerService.KEY_IS_MUTED, false);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context,
+                isMuted ? TimerService.TEMP_MUTE_CHANNEL_ID : TimerService.TEMP_CHANNEL_ID)
+                .setSmallIcon(R.drawable.outline_hourglass_top_black_24)
+                .setContentTitle("Timer Session")
+                .setContentText("Session has ended")
+                .setAutoCancel(true);
+        try {
+            NotificationManagerCompat.from(context).notify(TimerService.TEMP_NOTIFICATION_ID, builder.build());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Notification permission not granted", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package orion.app.timer;
+
+import java.util.Arrays;
+
+// Open-addressing set of positive longs
+// Used for dedupe by session id without boxing every id
+final class LongHashSet {
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        table = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long value) {
+        int mask = table.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == EMPTY) return false;
+            if (current == value) return true;
+        }
+    }
+
+    // Returns false if the value was already present
+    boolean add(long value) {
+        if (value == EMPTY) throw new IllegalArgumentException("0 is reserved");
+        if ((size + 1) * 2 > table.length) grow();
+
+        int mask = table.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) return false;
+            if (current == EMPTY) {
+                table[i] = value;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        size = 0;
+        for (long value : old)
+            if (value != EMPTY) add(value);
+    }
+
+    private static int index(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,22 +1,32 @@
 package orion.app.timer;
 
+import android.app.TimePickerDialog;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.graphics.Color;
-import android.os.Build;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.text.format.DateFormat;
 import android.util.Log;
+import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewStub;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
+import android.widget.PopupMenu;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.graphics.ColorUtils;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
@@ -27,9 +37,15 @@ import android.content.IntentFilter;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.List;
 import java.util.Locale;
 
 import orion.gz.pomodorotimer.OnTimerChangeListener;
@@ -51,6 +67,7 @@ public class MainActivity extends AppCompatActivity {
     private TimerView timerView;
     private TextView timeTextview;
     private Button sessionStartBtn;
+    private TextView subjectTextview;
     private LinearLayout timeControlLayout;
     private LinearLayout sessionControlLayout;
     private FloatingActionButton subtractMinuteFab;
@@ -59,6 +76,11 @@ public class MainActivity extends AppCompatActivity {
     private FloatingActionButton sessionEndFab;
     private FloatingActionButton muteFab;
 
+    // Session controls are GONE until a session starts, so they are inflated on demand
+    private ViewStub subtractMinuteStub;
+    private ViewStub addMinuteStub;
+    private ViewStub sessionControlStub;
+
     // State Variables
     private boolean isTimerPause = false;
     private boolean isMuted = false;
@@ -69,6 +91,12 @@ public class MainActivity extends AppCompatActivity {
     private LocalTime startTime;
     private LocalTime endTime;
 
+    // Document pickers for the history export and import
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"), this::exportHistory);
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importHistory);
+
     // Broadcast Receiver for Timer Update
     private final BroadcastReceiver timerUpdateReceiver = new BroadcastReceiver() {
         @Override
@@ -81,13 +109,25 @@ public class MainActivity extends AppCompatActivity {
                 if (sessionState == -1)
                     restoreTimerState();
                 else {
-                    long remainingTime = intent.getLongExtra(TimerService.BROADCAST_EXTRA_REMAINING_TIME, 0L) / 1000;
-                    setTimerTime(remainingTime);
+                    long remainingMillis = intent.getLongExtra(TimerService.BROADCAST_EXTRA_REMAINING_TIME, 0L);
+                    setTimerTime(remainingMillis);
                 }
             }
         }
     };
 
+    // Broadcast Receiver for pause/resume from outside the activity (notification actions)
+    private final BroadcastReceiver timerStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            boolean paused = intent.getBooleanExtra(TimerService.BROADCAST_EXTRA_IS_PAUSED, false);
+            if (sessionControlFab == null || paused == isTimerPause) return;
+
+            isTimerPause = paused;
+            viewControl(paused ? SESSION_PAUSE : SESSION_RESUME);
+        }
+    };
+
     // Broadcast Receiver for Timer Stop
     private final BroadcastReceiver timerStopReceiver = new BroadcastReceiver() {
         @Override
@@ -106,13 +146,15 @@ public class MainActivity extends AppCompatActivity {
     // Restore Main Layout
     private void restoreTimerState() {
         SharedPreferences prefs = getApplicationContext().getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
-        long remainingTime = prefs.getLong(TimerService.KEY_REMAINING_TIME, 0);
-        isMuted = prefs.getBoolean(TimerService.KEY_IS_MUTED, false);
-        isTimerPause = prefs.getBoolean(TimerService.KEY_IS_PAUSED, false);
+        // Service state in memory, read from prefs only once after a process restart
+        TimerSnapshot snapshot = TimerService.getSnapshot(this);
+        long remainingMillis = snapshot.remainingMillis(SystemClock.elapsedRealtime());
+        isMuted = snapshot.isMuted;
+        isTimerPause = snapshot.isPaused;
         sessionDuration = prefs.getLong(TimerService.KEY_DURATION_TIME, 0);
         startTime = prefs.getString(TimerService.KEY_START_TIME, null) == null ? null : LocalTime.parse(prefs.getString(TimerService.KEY_START_TIME, null));
 
-        setTimerTime(remainingTime);
+        setTimerTime(remainingMillis);
         sessionState = SESSION_START;
         viewControl(sessionState);
 
@@ -121,6 +163,7 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Trace.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
@@ -131,10 +174,9 @@ public class MainActivity extends AppCompatActivity {
         });
 
         initViews();
-        setupTimer();
-        setupTimeControl();
         setupTimerControl();
         updateTimerView();
+        Trace.endSection();
     }
 
     @Override
@@ -145,14 +187,12 @@ public class MainActivity extends AppCompatActivity {
         String stop = TimerService.BROADCAST_ACTION_TIMER_STOP;
         String state = TimerService.BROADCAST_ACTION_TIMER_STATE_CHANGED;
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            // Register Broadcast Receiver
-            LocalBroadcastManager.getInstance(context).registerReceiver(timerUpdateReceiver, new IntentFilter(update));
-            LocalBroadcastManager.getInstance(context).registerReceiver(timerStopReceiver, new IntentFilter(stop));
-            Log.d("TimerService", "registerReceiver");
-        } else {
-            Log.w("TimerService", "registerReceiver Falied");
-        }
+        // Register Broadcast Receiver
+        // Local broadcasts need no export flags, so this works on every API level
+        LocalBroadcastManager.getInstance(context).registerReceiver(timerUpdateReceiver, new IntentFilter(update));
+        LocalBroadcastManager.getInstance(context).registerReceiver(timerStopReceiver, new IntentFilter(stop));
+        LocalBroadcastManager.getInstance(context).registerReceiver(timerStateReceiver, new IntentFilter(state));
+        Log.d("TimerService", "registerReceiver");
     }
 
     @Override
@@ -163,6 +203,7 @@ public class MainActivity extends AppCompatActivity {
         // Unregister Broadcast Receiver
         LocalBroadcastManager.getInstance(context).unregisterReceiver(timerUpdateReceiver);
         LocalBroadcastManager.getInstance(context).unregisterReceiver(timerStopReceiver);
+        LocalBroadcastManager.getInstance(context).unregisterReceiver(timerStateReceiver);
     }
 
     @Override
@@ -184,23 +225,54 @@ public class MainActivity extends AppCompatActivity {
         timeTextview = findViewById(R.id.time_textview);
         timeTextview.setText(formattedTimeText);
 
+        ImageButton menuBtn = findViewById(R.id.menu_btn);
+        menuBtn.setOnClickListener(v -> {
+            PopupMenu menu = new PopupMenu(this, v);
+            menu.inflate(R.menu.menu_main);
+            menu.setOnMenuItemClickListener(this::onMenuItemClick);
+            menu.show();
+        });
+
         timeControlLayout = findViewById(R.id.timer_time_control_layout);
-        addMinuteFab = findViewById(R.id.add_minute_fab);
-        subtractMinuteFab = findViewById(R.id.subtract_minute_fab);
+        addMinuteStub = findViewById(R.id.add_minute_fab_stub);
+        subtractMinuteStub = findViewById(R.id.subtract_minute_fab_stub);
 
-        sessionControlLayout = findViewById(R.id.timer_session_control_layout);
+        sessionControlStub = findViewById(R.id.timer_session_control_stub);
         sessionStartBtn = findViewById(R.id.session_start_btn);
-        sessionControlFab = findViewById(R.id.session_control_fab);
-        sessionEndFab = findViewById(R.id.session_end_fab);
-        muteFab = findViewById(R.id.mute_fab);
+
+        // Tap on the subject picks the subject of the next session
+        subjectTextview = findViewById(R.id.subject_textview);
+        subjectTextview.setOnClickListener(v -> showSubjectPicker());
+        updateSubjectText();
+    }
+
+    // Inflate Session Control Components
+    // Called once, when the first session starts or is restored
+    private void inflateSessionControls() {
+        if (sessionControlLayout != null) return;
+
+        Trace.beginSection("MainActivity.inflateSessionControls");
+        subtractMinuteFab = (FloatingActionButton) subtractMinuteStub.inflate();
+        addMinuteFab = (FloatingActionButton) addMinuteStub.inflate();
+
+        sessionControlLayout = (LinearLayout) sessionControlStub.inflate();
+        sessionControlFab = sessionControlLayout.findViewById(R.id.session_control_fab);
+        sessionEndFab = sessionControlLayout.findViewById(R.id.session_end_fab);
+        muteFab = sessionControlLayout.findViewById(R.id.mute_fab);
+
+        setupTimeControl();
+        setupSessionControl();
+        Trace.endSection();
     }
 
     // View control based on timer status
     private void viewControl(int state) {
         switch (state) {
             case SESSION_START:
+                inflateSessionControls();
                 sessionState = SESSION_START;
                 sessionStartBtn.setVisibility(View.GONE);
+                subjectTextview.setVisibility(View.GONE);
                 sessionControlLayout.setVisibility(View.VISIBLE);
                 addMinuteFab.setVisibility(View.VISIBLE);
                 subtractMinuteFab.setVisibility(View.VISIBLE);
@@ -208,27 +280,33 @@ public class MainActivity extends AppCompatActivity {
                 break;
             case SESSION_END:
                 sessionState = SESSION_END;
+                sessionStartBtn.setVisibility(View.VISIBLE);
+                subjectTextview.setVisibility(View.VISIBLE);
+                if (sessionControlLayout == null) break;
                 sessionControlFab.setImageResource(R.drawable.outline_pause_black_24);
                 muteFab.setImageResource(R.drawable.outline_volume_up_black_24);
                 sessionControlLayout.setVisibility(View.GONE);
                 addMinuteFab.setVisibility(View.GONE);
                 subtractMinuteFab.setVisibility(View.GONE);
-                sessionStartBtn.setVisibility(View.VISIBLE);
                 break;
             case SESSION_PAUSE:
                 sessionState = SESSION_PAUSE;
                 timerView.setAlpha(0.5F);
+                if (sessionControlFab == null) break;
                 sessionControlFab.setImageResource(R.drawable.outline_play_arrow_black_24);
                 break;
             case SESSION_RESUME:
                 sessionState = SESSION_RESUME;
                 timerView.setAlpha(1F);
+                if (sessionControlFab == null) break;
                 sessionControlFab.setImageResource(R.drawable.outline_pause_black_24);
                 break;
             case MUTE:
+                if (muteFab == null) break;
                 muteFab.setImageResource(R.drawable.outline_volume_off_black_24);
                 break;
             case UNMUTE:
+                if (muteFab == null) break;
                 muteFab.setImageResource(R.drawable.outline_volume_up_black_24);
                 break;
         }
@@ -245,19 +323,6 @@ public class MainActivity extends AppCompatActivity {
         viewControl(SESSION_END);
     }
 
-    // Change Timer Component's Color
-    // I STRONGLY recommend this color pattern
-    private void setupTimer() {
-        int color = getResources().getColor(R.color.c5);
-        int brightColor = ColorUtils.blendARGB(color, Color.WHITE, 0.2F);
-        int darkColor = ColorUtils.blendARGB(color, Color.BLACK, 0.2F);
-
-        sessionStartBtn.setBackgroundColor(color);
-        timerView.setCirlceColor(color);
-        timerView.setHandColor(darkColor);
-        timerView.setKnobColor(brightColor);
-    }
-
     // Listener for Timer Control
     private void setupTimeControl() {
         Context context = getApplicationContext();
@@ -288,6 +353,9 @@ public class MainActivity extends AppCompatActivity {
             Bundle bundle = new Bundle();
             bundle.putLong(TimerService.BUNDLE_TIMER_TIME, sessionDuration * 60);
             bundle.putString(TimerService.BUNDLE_START_TIME, startTime.toString());
+            // Tag the session with the selected subject, if any
+            Subject subject = getSelectedSubject();
+            bundle.putLong(TimerService.BUNDLE_SUBJECT_ID, subject == null ? Subject.NONE : subject.id);
 
             Intent startTimerIntent = new Intent(context, TimerService.class);
             startTimerIntent.setAction(TimerService.ACTION_START);
@@ -296,6 +364,11 @@ public class MainActivity extends AppCompatActivity {
 
             viewControl(SESSION_START);
         });
+    }
+
+    // Listener for Session Control Components
+    private void setupSessionControl() {
+        Context context = getApplicationContext();
         sessionControlFab.setOnClickListener(v -> {
             if (isTimerPause) {
                 Intent resumeTimerIntent = new Intent(context, TimerService.class);
@@ -340,15 +413,162 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    // Overflow Menu
+    private boolean onMenuItemClick(MenuItem item) {
+        int id = item.getItemId();
+        if (id == R.id.menu_timer_list) {
+            startActivity(new Intent(this, TimerListActivity.class));
+            return true;
+        } else if (id == R.id.menu_schedule) {
+            showSchedulePicker();
+            return true;
+        } else if (id == R.id.menu_export) {
+            exportLauncher.launch("sessions.csv");
+            return true;
+        } else if (id == R.id.menu_import) {
+            // CSV or JSON lines, the format is detected per line
+            importLauncher.launch(new String[]{"text/*", "application/json", "application/octet-stream"});
+            return true;
+        }
+        return false;
+    }
+
+    // Session Scheduling
+    // Queues the dial duration and the selected subject at the next occurrence of the picked time
+    private void showSchedulePicker() {
+        long minutes = currentMinutes;
+        // An empty dial has nothing to schedule, the service would reject it
+        if (minutes <= 0) return;
+        LocalTime now = LocalTime.now();
+        new TimePickerDialog(this, (picker, hour, minute) -> {
+            LocalDateTime start = LocalDate.now().atTime(hour, minute);
+            if (!start.isAfter(LocalDateTime.now())) start = start.plusDays(1);
+
+            Subject subject = getSelectedSubject();
+            long startMillis = start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            SessionSchedule.get(this).schedule(startMillis, minutes * 60, subject == null ? Subject.NONE : subject.id);
+            showToast(getString(R.string.schedule_added, minutes, start.toLocalTime().toString()));
+        }, now.getHour(), now.getMinute(), DateFormat.is24HourFormat(this)).show();
+    }
+
+    // History Export & Import
+    // Streamed on the transfer thread, the result is shown as a toast
+    private void exportHistory(Uri uri) {
+        if (uri == null) return;
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri, "wt");
+        } catch (IOException e) {
+            onTransferError(e);
+            return;
+        }
+        if (out == null) return;
+
+        SessionTransfer.exportAsync(SessionHistory.get(this), Channels.newChannel(out), SessionCodec.Format.CSV, null,
+                new SessionTransfer.ResultListener() {
+                    @Override
+                    public void onFinished(SessionTransfer.Result result) {
+                        showToast(getString(R.string.transfer_exported, result.written));
+                    }
+
+                    @Override
+                    public void onError(IOException error) {
+                        onTransferError(error);
+                    }
+                });
+    }
+
+    private void importHistory(Uri uri) {
+        if (uri == null) return;
+        InputStream in;
+        try {
+            in = getContentResolver().openInputStream(uri);
+        } catch (IOException e) {
+            onTransferError(e);
+            return;
+        }
+        if (in == null) return;
+
+        SessionTransfer.importAsync(SessionHistory.get(this), Channels.newChannel(in), null,
+                new SessionTransfer.ResultListener() {
+                    @Override
+                    public void onFinished(SessionTransfer.Result result) {
+                        showToast(getString(R.string.transfer_imported, result.written, result.duplicates, result.rejected));
+                    }
+
+                    @Override
+                    public void onError(IOException error) {
+                        onTransferError(error);
+                    }
+                });
+    }
+
+    private void onTransferError(IOException error) {
+        Log.e("SessionTransfer", "Transfer failed", error);
+        showToast(getString(R.string.transfer_failed));
+    }
+
+    // Application context, the transfer may finish after the activity is gone
+    private void showToast(String text) {
+        Toast.makeText(getApplicationContext(), text, Toast.LENGTH_SHORT).show();
+    }
+
+    // Subject Picker
+    // Lists the catalog plus "No subject" and "New subject…"
+    private void showSubjectPicker() {
+        List<Subject> subjects = SubjectCatalog.get(this).getAll();
+        String[] names = new String[subjects.size() + 2];
+        names[0] = getString(R.string.subject_none);
+        for (int i = 0; i < subjects.size(); i++) names[i + 1] = subjects.get(i).name;
+        names[names.length - 1] = getString(R.string.subject_new);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.subject_picker_title)
+                .setItems(names, (dialog, which) -> {
+                    if (which == 0) selectSubject(Subject.NONE);
+                    else if (which <= subjects.size()) selectSubject(subjects.get(which - 1).id);
+                    else showNewSubjectDialog();
+                })
+                .show();
+    }
+
+    private void showNewSubjectDialog() {
+        EditText nameEdit = new EditText(this);
+        nameEdit.setSingleLine(true);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.subject_new)
+                .setView(nameEdit)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    String name = nameEdit.getText().toString();
+                    if (name.trim().isEmpty()) return;
+                    selectSubject(SubjectCatalog.get(this).getOrCreate(name).id);
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    private void selectSubject(long id) {
+        SharedPreferences prefs = getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(TimerService.KEY_SELECTED_SUBJECT_ID, id).apply();
+        updateSubjectText();
+    }
+
+    // Selected subject, or null if none is selected or it was removed from the catalog
+    private Subject getSelectedSubject() {
+        SharedPreferences prefs = getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        return SubjectCatalog.get(this).find(prefs.getLong(TimerService.KEY_SELECTED_SUBJECT_ID, Subject.NONE));
+    }
+
+    private void updateSubjectText() {
+        Subject subject = getSelectedSubject();
+        subjectTextview.setText(subject == null ? getString(R.string.subject_none) : subject.name);
+    }
+
     // Set Timer Time & Time TextView
-    private void setTimerTime(long remainingTime) {
-        long minutes = remainingTime / 60;
-        long seconds = remainingTime % 60;
-        currentMinutes = minutes;
-        currentSeconds = seconds;
-
-        timerView.setTime(currentMinutes, currentSeconds);
-        updateTimeText();
+    // TimerView reports the time back through OnTimerChangeListener
+    private void setTimerTime(long remainingMillis) {
+        timerView.setTimeMillis(remainingMillis);
     }
 
     // TimerView setOnTimerChangeListener
@@ -0,0 +1,60 @@
+package orion.app.timer;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import java.util.Map;
+
+import orion.gz.pomodorotimer.TimerView;
+
+// App-side caches under memory pressure
+// Registered once on the application context when the first cache is created, so a
+// trim reaches the caches whichever components are alive. TimerView trims the shared
+// dial caches on its own.
+final class MemoryTrim {
+    private static boolean isRegistered = false;
+
+    private MemoryTrim() {
+    }
+
+    // Register again on the next cache, e.g. on a new test application (tests)
+    static synchronized void resetForTest() {
+        isRegistered = false;
+    }
+
+    // Listen for memory pressure once per process
+    static synchronized void register(Context context) {
+        if (isRegistered) return;
+        isRegistered = true;
+        Context appContext = context.getApplicationContext();
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(appContext, level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(appContext, TRIM_MEMORY_COMPLETE);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        });
+    }
+
+    private static void trimMemory(Context context, int level) {
+        SubjectCatalog.get(context).trimMemory(level);
+        SessionChime.get(context).trimMemory(level);
+    }
+
+    // Bytes held by each cache, library and app
+    static Map<String, Long> bytesHeld(Context context) {
+        Map<String, Long> bytes = TimerView.getCacheBytes();
+        bytes.put("subjects", SubjectCatalog.get(context).bytesHeld());
+        bytes.put("chime", SessionChime.get(context).bytesHeld());
+        return bytes;
+    }
+}
@@ -0,0 +1,17 @@
+package orion.app.timer;
+
+// A session queued to start at a wall clock time
+final class ScheduledSession {
+    final long id;
+    // Wall clock start (epoch millis)
+    final long startMillis;
+    final long durationSeconds;
+    final long subjectId;
+
+    ScheduledSession(long id, long startMillis, long durationSeconds, long subjectId) {
+        this.id = id;
+        this.startMillis = startMillis;
+        this.durationSeconds = durationSeconds;
+        this.subjectId = subjectId;
+    }
+}
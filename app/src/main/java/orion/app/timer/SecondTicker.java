@@ -0,0 +1,53 @@
+package orion.app.timer;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+// Frame-aligned ticker shared by everything on one screen
+// Runs on Choreographer, and only wakes up on the frame where the next displayed second changes.
+final class SecondTicker implements Choreographer.FrameCallback {
+
+    interface Listener {
+        // Called on the main thread with the frame time (uptime millis)
+        // Returns millis until the next second change, or a negative value to go idle
+        long onTick(long frameTimeMillis);
+    }
+
+    private final Listener listener;
+    private boolean isRunning = false;
+
+    SecondTicker(Listener listener) {
+        this.listener = listener;
+    }
+
+    void start() {
+        if (isRunning) return;
+        isRunning = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        isRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    // Tick on the next frame, e.g. after the data set changed
+    void poke() {
+        if (!isRunning) return;
+        Choreographer.getInstance().removeFrameCallback(this);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isRunning) return;
+
+        long frameTimeMillis = frameTimeNanos / 1_000_000L;
+        long delay = listener.onTick(frameTimeMillis);
+        if (delay < 0) return;
+
+        // Frame time lags uptime slightly, so schedule against the clock
+        long lag = SystemClock.uptimeMillis() - frameTimeMillis;
+        Choreographer.getInstance().postFrameCallbackDelayed(this, Math.max(0, delay - lag));
+    }
+}
@@ -0,0 +1,102 @@
+package orion.app.timer;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.Looper;
+
+// End-of-session chime, decoded into a SoundPool when the session starts
+// Playing a loaded sample has no decode or notification latency. The pool is
+// process-wide so playback outlives the stopping service, and released shortly after.
+final class SessionChime {
+    // Long enough for the chime to finish playing
+    private static final long RELEASE_DELAY_MILLIS = 3000;
+
+    private static SessionChime instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable release = this::release;
+
+    private SoundPool soundPool;
+    private int soundId;
+    private long sampleBytes;
+    private volatile boolean isLoaded = false;
+
+    static synchronized SessionChime get(Context context) {
+        if (instance == null) {
+            instance = new SessionChime(context.getApplicationContext());
+            MemoryTrim.register(context);
+        }
+        return instance;
+    }
+
+    // Release the pool and drop the instance (tests)
+    static synchronized void resetForTest() {
+        if (instance != null) {
+            instance.mainHandler.removeCallbacks(instance.release);
+            instance.release();
+        }
+        instance = null;
+    }
+
+    private SessionChime(Context context) {
+        this.context = context;
+    }
+
+    // Decode and load the chime, no-op if already loaded
+    synchronized void preload() {
+        mainHandler.removeCallbacks(release);
+        if (soundPool != null) return;
+
+        AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .setUsage(AudioAttributes.USAGE_NOTIFICATION_EVENT)
+                .build();
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(1)
+                .setAudioAttributes(audioAttributes)
+                .build();
+        soundPool.setOnLoadCompleteListener((pool, sampleId, status) -> isLoaded = status == 0);
+        soundId = soundPool.load(context, R.raw.session_chime, 1);
+        try (AssetFileDescriptor fd = context.getResources().openRawResourceFd(R.raw.session_chime)) {
+            sampleBytes = fd.getLength();
+        } catch (Exception e) {
+            sampleBytes = 0;
+        }
+    }
+
+    // Play now, returns false if the sample is not loaded (caller falls back to the notification sound)
+    synchronized boolean play() {
+        if (soundPool == null || !isLoaded) return false;
+        soundPool.play(soundId, 1F, 1F, 1, 0, 1F);
+        releaseLater();
+        return true;
+    }
+
+    // Free the pool once idle, a new session cancels this
+    synchronized void releaseLater() {
+        mainHandler.removeCallbacks(release);
+        mainHandler.postDelayed(release, RELEASE_DELAY_MILLIS);
+    }
+
+    // Only under severe pressure: the end alert then falls back to the notification sound
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) release();
+    }
+
+    // Decoded sample size (16-bit PCM), 0 when released
+    synchronized long bytesHeld() {
+        return soundPool == null ? 0 : sampleBytes;
+    }
+
+    private synchronized void release() {
+        if (soundPool == null) return;
+        soundPool.release();
+        soundPool = null;
+        isLoaded = false;
+    }
+}
@@ -0,0 +1,267 @@
+package orion.app.timer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+// Line formats for session history: CSV and JSON lines
+// Records are encoded straight into a ByteBuffer and parsed straight from bytes,
+// so streaming a large history never builds a String per line.
+final class SessionCodec {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    enum Format {
+        CSV("id,start,duration,completed,subject\n"),
+        JSONL(null);
+
+        final String header;
+
+        Format(String header) {
+            this.header = header;
+        }
+    }
+
+    private static final byte[] JSON_ID = "{\"id\":".getBytes();
+    private static final byte[] JSON_START = ",\"start\":".getBytes();
+    private static final byte[] JSON_DURATION = ",\"duration\":".getBytes();
+    private static final byte[] JSON_COMPLETED = ",\"completed\":".getBytes();
+    private static final byte[] JSON_SUBJECT = ",\"subject\":".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+
+    private SessionCodec() {
+    }
+
+    /** Writer **/
+    // Buffered record writer over a channel, flushes when the buffer is full
+    static final class Writer {
+        private final WritableByteChannel channel;
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bytesWritten = 0;
+
+        Writer(WritableByteChannel channel, Format format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        void writeHeader() throws IOException {
+            if (format.header != null) put(format.header.getBytes());
+        }
+
+        void write(SessionRecord record) throws IOException {
+            // Longest line is well under 128 bytes
+            if (buffer.remaining() < 128) flush();
+
+            if (format == Format.CSV) {
+                putLong(record.id);
+                buffer.put((byte) ',');
+                putLong(record.startMillis);
+                buffer.put((byte) ',');
+                putLong(record.durationMillis);
+                buffer.put((byte) ',');
+                buffer.put((byte) (record.completed ? '1' : '0'));
+                // Subject column is optional, untagged lines keep the old 4 columns
+                if (record.subjectId != Subject.NONE) {
+                    buffer.put((byte) ',');
+                    putLong(record.subjectId);
+                }
+            } else {
+                buffer.put(JSON_ID);
+                putLong(record.id);
+                buffer.put(JSON_START);
+                putLong(record.startMillis);
+                buffer.put(JSON_DURATION);
+                putLong(record.durationMillis);
+                buffer.put(JSON_COMPLETED);
+                buffer.put(record.completed ? TRUE : FALSE);
+                if (record.subjectId != Subject.NONE) {
+                    buffer.put(JSON_SUBJECT);
+                    putLong(record.subjectId);
+                }
+                buffer.put((byte) '}');
+            }
+            buffer.put((byte) '\n');
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                bytesWritten += channel.write(buffer);
+            buffer.clear();
+        }
+
+        long bytesWritten() {
+            return bytesWritten + buffer.position();
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            if (buffer.remaining() < bytes.length) flush();
+            buffer.put(bytes);
+        }
+
+        private void putLong(long value) {
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            if (value == 0) {
+                buffer.put((byte) '0');
+                return;
+            }
+            int start = buffer.position();
+            while (value > 0) {
+                buffer.put((byte) ('0' + value % 10));
+                value /= 10;
+            }
+            // Digits were written in reverse
+            for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+                byte tmp = buffer.get(i);
+                buffer.put(i, buffer.get(j));
+                buffer.put(j, tmp);
+            }
+        }
+    }
+    /** Writer **/
+
+    /** Reader **/
+    interface LineHandler {
+        // Returns false to stop reading
+        boolean onLine(byte[] bytes, int start, int end) throws IOException;
+    }
+
+    // Buffered line reader over a channel
+    static final class LineReader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long bytesRead = 0;
+
+        LineReader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        void forEachLine(LineHandler handler) throws IOException {
+            boolean eof = false;
+            while (!eof) {
+                int read = channel.read(buffer);
+                if (read < 0) eof = true;
+                else bytesRead += read;
+
+                byte[] bytes = buffer.array();
+                int end = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < end; i++) {
+                    if (bytes[i] != '\n') continue;
+                    if (!handler.onLine(bytes, lineStart, i)) return;
+                    lineStart = i + 1;
+                }
+
+                if (eof) {
+                    if (lineStart < end) handler.onLine(bytes, lineStart, end);
+                    return;
+                }
+
+                // Keep the partial line, grow if one line fills the whole buffer
+                if (lineStart == 0 && end == buffer.capacity()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    bigger.put(buffer);
+                    buffer = bigger;
+                } else {
+                    buffer.position(lineStart);
+                    buffer.limit(end);
+                    buffer.compact();
+                }
+            }
+        }
+    }
+
+    // True for an empty line or the CSV header
+    static boolean isBlankOrHeader(byte[] bytes, int start, int end) {
+        while (start < end && (bytes[start] == ' ' || bytes[start] == '\r')) start++;
+        if (start >= end) return true;
+        String header = Format.CSV.header;
+        for (int i = 0; i < 3 && start + i < end; i++)
+            if (bytes[start + i] != header.charAt(i)) return false;
+        return end - start >= 3;
+    }
+
+    // Parse one CSV or JSON line, returns null for headers, blank and malformed lines
+    static SessionRecord parse(byte[] bytes, int start, int end) {
+        while (start < end && (bytes[start] == ' ' || bytes[start] == '\t')) start++;
+        while (end > start && (bytes[end - 1] == '\r' || bytes[end - 1] == ' ')) end--;
+        if (start >= end) return null;
+        return bytes[start] == '{' ? parseJson(bytes, start, end) : parseCsv(bytes, start, end);
+    }
+
+    private static SessionRecord parseCsv(byte[] bytes, int start, int end) {
+        long[] fields = new long[5];
+        int field = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end && field < 5; i++) {
+            if (i < end && bytes[i] != ',') continue;
+            Long value = parseLong(bytes, fieldStart, i);
+            if (value == null) return null;
+            fields[field++] = value;
+            fieldStart = i + 1;
+        }
+        if (field < 4) return null;
+        return new SessionRecord(fields[0], fields[1], fields[2], fields[3] != 0, field == 5 ? fields[4] : Subject.NONE);
+    }
+
+    private static SessionRecord parseJson(byte[] bytes, int start, int end) {
+        Long id = jsonLong(bytes, start, end, "\"id\"");
+        Long startMillis = jsonLong(bytes, start, end, "\"start\"");
+        Long duration = jsonLong(bytes, start, end, "\"duration\"");
+        int completed = jsonValue(bytes, start, end, "\"completed\"");
+        if (id == null || startMillis == null || duration == null || completed < 0) return null;
+        Long subjectId = jsonLong(bytes, start, end, "\"subject\"");
+        return new SessionRecord(id, startMillis, duration, bytes[completed] == 't',
+                subjectId == null ? Subject.NONE : subjectId);
+    }
+
+    private static Long jsonLong(byte[] bytes, int start, int end, String key) {
+        int valueStart = jsonValue(bytes, start, end, key);
+        if (valueStart < 0) return null;
+        int valueEnd = valueStart;
+        while (valueEnd < end && (bytes[valueEnd] == '-' || (bytes[valueEnd] >= '0' && bytes[valueEnd] <= '9')))
+            valueEnd++;
+        return parseLong(bytes, valueStart, valueEnd);
+    }
+
+    // Index of the first byte of the value for key, or -1
+    private static int jsonValue(byte[] bytes, int start, int end, String key) {
+        int keyLength = key.length();
+        outer:
+        for (int i = start; i + keyLength <= end; i++) {
+            for (int k = 0; k < keyLength; k++)
+                if (bytes[i + k] != key.charAt(k)) continue outer;
+
+            int j = i + keyLength;
+            while (j < end && (bytes[j] == ' ' || bytes[j] == ':')) j++;
+            return j < end ? j : -1;
+        }
+        return -1;
+    }
+
+    private static Long parseLong(byte[] bytes, int start, int end) {
+        if (start >= end) return null;
+        boolean negative = bytes[start] == '-';
+        if (negative) start++;
+        if (start >= end || end - start > 18) return null;
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') return null;
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+    /** Reader **/
+}
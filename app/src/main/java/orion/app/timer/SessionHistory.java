@@ -0,0 +1,119 @@
+package orion.app.timer;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Append-only session history in the app's files directory
+// Stored in the compact CSV export format, without header, one record per line.
+final class SessionHistory {
+    private static final String TAG = "SessionHistory";
+    static final String FILE_NAME = "session_history.csv";
+
+    interface Visitor {
+        // Returns false to stop reading
+        boolean onRecord(SessionRecord record) throws IOException;
+    }
+
+    interface Listener {
+        // Called on the appending thread after records were written
+        void onAppended(List<SessionRecord> records);
+    }
+
+    private static SessionHistory instance;
+
+    private final File file;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Single writer thread for appends from TimerService
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "SessionHistory"));
+
+    static synchronized SessionHistory get(Context context) {
+        if (instance == null) {
+            instance = new SessionHistory(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+            // Subject totals follow every append, including imports
+            instance.setListener(SubjectCatalog.get(context));
+        }
+        return instance;
+    }
+
+    // Drop the instance so the next get() reads the files again (tests)
+    static synchronized void resetForTest() {
+        if (instance != null) instance.writer.shutdown();
+        instance = null;
+    }
+
+    SessionHistory(File file) {
+        this.file = file;
+    }
+
+    // Replaces all listeners
+    void setListener(Listener listener) {
+        listeners.clear();
+        if (listener != null) listeners.add(listener);
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    // Record a finished session without blocking the caller
+    void appendAsync(SessionRecord record) {
+        writer.execute(() -> {
+            try {
+                appendAll(Collections.singletonList(record));
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot append session " + record.id, e);
+            }
+        });
+    }
+
+    synchronized void appendAll(List<SessionRecord> records) throws IOException {
+        if (records.isEmpty()) return;
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            SessionCodec.Writer out = new SessionCodec.Writer(channel, SessionCodec.Format.CSV);
+            for (SessionRecord record : records) out.write(record);
+            out.flush();
+        }
+        for (Listener listener : listeners) listener.onAppended(records);
+    }
+
+    // Stream all records in file order
+    void forEach(Visitor visitor) throws IOException {
+        if (!file.exists()) return;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new SessionCodec.LineReader(channel).forEachLine((bytes, start, end) -> {
+                SessionRecord record = SessionCodec.parse(bytes, start, end);
+                return record == null || visitor.onRecord(record);
+            });
+        }
+    }
+
+    // Ids of all stored sessions, for dedupe
+    LongHashSet loadIds() throws IOException {
+        // Roughly 40 bytes per line
+        LongHashSet ids = new LongHashSet((int) Math.min(Integer.MAX_VALUE / 4, file.length() / 40 + 16));
+        forEach(record -> {
+            if (record.isValid()) ids.add(record.id);
+            return true;
+        });
+        return ids;
+    }
+
+    long sizeBytes() {
+        return file.length();
+    }
+}
@@ -0,0 +1,35 @@
+package orion.app.timer;
+
+// One recorded session in the history
+final class SessionRecord {
+    final long id;
+    // Wall clock start (epoch millis)
+    final long startMillis;
+    // Focused time, excluding pauses
+    final long durationMillis;
+    // True if the timer ran out, false if it was stopped early
+    final boolean completed;
+    // Tagged subject, Subject.NONE if untagged
+    final long subjectId;
+
+    SessionRecord(long id, long startMillis, long durationMillis, boolean completed) {
+        this(id, startMillis, durationMillis, completed, Subject.NONE);
+    }
+
+    SessionRecord(long id, long startMillis, long durationMillis, boolean completed, long subjectId) {
+        this.id = id;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.completed = completed;
+        this.subjectId = subjectId;
+    }
+
+    boolean isValid() {
+        return id > 0 && startMillis > 0 && durationMillis >= 0;
+    }
+
+    // Id from the start time plus random low bits, unique across devices in practice
+    static long newId(long startMillis) {
+        return (startMillis << 12) | (long) (Math.random() * 4096);
+    }
+}
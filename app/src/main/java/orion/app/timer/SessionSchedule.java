@@ -0,0 +1,275 @@
+package orion.app.timer;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Persistent queue of future sessions
+// An indexed binary min-heap by start time: insert, cancel and poll are O(log n).
+// Only the head has an alarm, and the alarm starts TimerService with ACTION_START,
+// so nothing runs between scheduled sessions.
+final class SessionSchedule {
+    private static final String TAG = "SessionSchedule";
+    static final String FILE_NAME = "schedule.csv";
+    // Entries missed by more than this (device off, alarm denied) are dropped, not started late
+    static final long MISSED_GRACE_MILLIS = 10 * 60 * 1000L;
+    private static final int REQUEST_ALARM = 20;
+
+    private static SessionSchedule instance;
+
+    private final Context context;
+    private final AtomicFile file;
+    private ScheduledSession[] heap = new ScheduledSession[16];
+    private int size = 0;
+    // Entry id -> position in heap
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private boolean isLoaded = false;
+
+    static synchronized SessionSchedule get(Context context) {
+        if (instance == null)
+            instance = new SessionSchedule(context.getApplicationContext(),
+                    new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        return instance;
+    }
+
+    // Drop the instance so the next get() reads the file again (tests)
+    static synchronized void resetForTest() {
+        instance = null;
+    }
+
+    SessionSchedule(Context context, File file) {
+        this.context = context;
+        this.file = new AtomicFile(file);
+    }
+
+    /** Queue **/
+    // Queue a session, returns its id
+    synchronized long schedule(long startMillis, long durationSeconds, long subjectId) {
+        ensureLoaded();
+        long id = SessionRecord.newId(startMillis);
+        while (id == 0 || positions.containsKey(id)) id++;
+        insert(new ScheduledSession(id, startMillis, durationSeconds, subjectId));
+        onChanged();
+        return id;
+    }
+
+    synchronized boolean cancel(long id) {
+        ensureLoaded();
+        Integer position = positions.get(id);
+        if (position == null) return false;
+        removeAt(position);
+        onChanged();
+        return true;
+    }
+
+    synchronized ScheduledSession peek() {
+        ensureLoaded();
+        return size == 0 ? null : heap[0];
+    }
+
+    synchronized boolean isEmpty() {
+        ensureLoaded();
+        return size == 0;
+    }
+
+    // Entries in start order
+    synchronized List<ScheduledSession> getAll() {
+        ensureLoaded();
+        ScheduledSession[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.startMillis, b.startMillis));
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    // Remove an entry whose alarm fired, null if it was cancelled meanwhile
+    // or fired too late to start (delayed alarm, device asleep past the grace)
+    synchronized ScheduledSession take(long id) {
+        ensureLoaded();
+        Integer position = positions.get(id);
+        if (position == null) return null;
+        ScheduledSession session = heap[position];
+        removeAt(position);
+        onChanged();
+        if (session.startMillis < System.currentTimeMillis() - MISSED_GRACE_MILLIS) {
+            Log.w(TAG, "Dropping missed session " + session.id);
+            return null;
+        }
+        return session;
+    }
+    /** Queue **/
+
+    /** Heap **/
+    private void insert(ScheduledSession session) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        heap[size] = session;
+        positions.put(session.id, size);
+        siftUp(size++);
+    }
+
+    private void removeAt(int position) {
+        positions.remove(heap[position].id);
+        size--;
+        if (position == size) {
+            heap[size] = null;
+            return;
+        }
+        heap[position] = heap[size];
+        heap[size] = null;
+        positions.put(heap[position].id, position);
+        // The moved entry may belong above or below
+        siftDown(siftUp(position));
+    }
+
+    private int siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (heap[parent].startMillis <= heap[position].startMillis) break;
+            swap(position, parent);
+            position = parent;
+        }
+        return position;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = position * 2 + 1;
+            if (left >= size) return;
+            int smallest = left + 1 < size && heap[left + 1].startMillis < heap[left].startMillis ? left + 1 : left;
+            if (heap[position].startMillis <= heap[smallest].startMillis) return;
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        ScheduledSession tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+        positions.put(heap[i].id, i);
+        positions.put(heap[j].id, j);
+    }
+    /** Heap **/
+
+    /** Alarm **/
+    private void onChanged() {
+        save();
+        arm();
+    }
+
+    // Arm the single alarm for the head, or cancel it when the queue is empty
+    synchronized void arm() {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        boolean isDropped = false;
+        while (size > 0 && heap[0].startMillis < now - MISSED_GRACE_MILLIS) {
+            Log.w(TAG, "Dropping missed session " + heap[0].id);
+            removeAt(0);
+            isDropped = true;
+        }
+        if (isDropped) save();
+
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        if (size == 0) {
+            PendingIntent pending = alarmIntent(null, PendingIntent.FLAG_NO_CREATE);
+            if (pending != null) {
+                alarmManager.cancel(pending);
+                pending.cancel();
+            }
+            if (!context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE)
+                    .getBoolean(TimerService.KEY_IS_RUNNING, false))
+                BootReceiver.setEnabled(context, false);
+            return;
+        }
+
+        // Same request code, so re-arming replaces the previous alarm
+        // Exact alarms may start a foreground service from the background. USE_EXACT_ALARM
+        // grants them on 13+; the inexact fallback only covers a revoked permission on 12.
+        ScheduledSession head = heap[0];
+        PendingIntent pending = alarmIntent(head, PendingIntent.FLAG_UPDATE_CURRENT);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms())
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, head.startMillis, pending);
+        else
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, head.startMillis, pending);
+        BootReceiver.setEnabled(context, true);
+    }
+
+    // ACTION_START for the head entry, the extras a manual start would carry plus the entry id
+    private PendingIntent alarmIntent(ScheduledSession session, int flags) {
+        Intent intent = new Intent(context, TimerService.class).setAction(TimerService.ACTION_START);
+        if (session != null) {
+            Bundle bundle = new Bundle();
+            bundle.putLong(TimerService.BUNDLE_TIMER_TIME, session.durationSeconds);
+            bundle.putLong(TimerService.BUNDLE_SUBJECT_ID, session.subjectId);
+            bundle.putString(TimerService.BUNDLE_START_TIME,
+                    LocalTime.ofInstant(Instant.ofEpochMilli(session.startMillis), ZoneId.systemDefault()).toString());
+            bundle.putLong(TimerService.BUNDLE_SCHEDULED_ID, session.id);
+            intent.putExtras(bundle);
+        }
+        return PendingIntent.getForegroundService(context, REQUEST_ALARM, intent, flags | PendingIntent.FLAG_IMMUTABLE);
+    }
+    /** Alarm **/
+
+    /** Persistence **/
+    // One entry per line in heap order: id,start,durationSeconds,subject
+    private void ensureLoaded() {
+        if (isLoaded) return;
+        isLoaded = true;
+        if (!file.getBaseFile().exists()) return;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openRead(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 4) continue;
+                try {
+                    insert(new ScheduledSession(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                            Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Skipping malformed entry: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot read schedule", e);
+        }
+    }
+
+    // Small file, written in place on each change
+    private void save() {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            Writer text = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (int i = 0; i < size; i++) {
+                ScheduledSession session = heap[i];
+                text.write(session.id + "," + session.startMillis + "," + session.durationSeconds + "," + session.subjectId + "\n");
+            }
+            text.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot save schedule", e);
+            if (out != null) file.failWrite(out);
+        }
+    }
+    /** Persistence **/
+}
@@ -0,0 +1,196 @@
+package orion.app.timer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Streaming export and import of the session history (CSV or JSON lines)
+// Records are processed in chunks, so memory stays bounded by the chunk size
+// plus the id set used for dedupe, regardless of history length.
+final class SessionTransfer {
+    // Records per chunk (progress callback and import batch size)
+    static final int CHUNK_SIZE = 1024;
+
+    interface ProgressListener {
+        void onProgress(long records, long bytes);
+    }
+
+    interface ResultListener {
+        void onFinished(Result result);
+
+        void onError(IOException error);
+    }
+
+    // Cancellation handle, checked once per chunk
+    static final class Task {
+        private volatile boolean cancelled = false;
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    static final class Result {
+        final long processed;
+        final long written;
+        final long duplicates;
+        final long rejected;
+        final boolean cancelled;
+
+        Result(long processed, long written, long duplicates, long rejected, boolean cancelled) {
+            this.processed = processed;
+            this.written = written;
+            this.duplicates = duplicates;
+            this.rejected = rejected;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private static ExecutorService executor;
+    private static Handler mainHandler;
+
+    private SessionTransfer() {
+    }
+
+    // Export the whole history, stops early when the task is cancelled
+    static Result export(SessionHistory history, WritableByteChannel channel, SessionCodec.Format format,
+                         Task task, ProgressListener progress) throws IOException {
+        SessionCodec.Writer out = new SessionCodec.Writer(channel, format);
+        long[] count = new long[1];
+        boolean[] cancelled = new boolean[1];
+
+        out.writeHeader();
+        history.forEach(record -> {
+            out.write(record);
+            if (++count[0] % CHUNK_SIZE == 0) {
+                if (task != null && task.isCancelled()) {
+                    cancelled[0] = true;
+                    return false;
+                }
+                if (progress != null) progress.onProgress(count[0], out.bytesWritten());
+            }
+            return true;
+        });
+        out.flush();
+
+        if (progress != null) progress.onProgress(count[0], out.bytesWritten());
+        return new Result(count[0], count[0], 0, 0, cancelled[0]);
+    }
+
+    // Import records, skipping invalid ones and ids already in the history (or earlier in the input)
+    // Input is read once; accepted records are appended in chunks of CHUNK_SIZE
+    static Result importFrom(SessionHistory history, ReadableByteChannel channel,
+                             Task task, ProgressListener progress) throws IOException {
+        LongHashSet ids = history.loadIds();
+        List<SessionRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+        SessionCodec.LineReader reader = new SessionCodec.LineReader(channel);
+        // processed, written, duplicates, rejected
+        long[] counts = new long[4];
+        boolean[] cancelled = new boolean[1];
+
+        reader.forEachLine((bytes, start, end) -> {
+            SessionRecord record = SessionCodec.parse(bytes, start, end);
+            if (record == null) {
+                if (!SessionCodec.isBlankOrHeader(bytes, start, end)) counts[3]++;
+                return true;
+            }
+
+            counts[0]++;
+            if (!record.isValid()) counts[3]++;
+            else if (!ids.add(record.id)) counts[2]++;
+            else chunk.add(record);
+
+            if (chunk.size() == CHUNK_SIZE) {
+                history.appendAll(chunk);
+                counts[1] += chunk.size();
+                chunk.clear();
+            }
+            if (counts[0] % CHUNK_SIZE == 0) {
+                if (task != null && task.isCancelled()) {
+                    cancelled[0] = true;
+                    return false;
+                }
+                if (progress != null) progress.onProgress(counts[0], reader.bytesRead());
+            }
+            return true;
+        });
+
+        // Records read before a cancel are kept, they are valid and deduped
+        history.appendAll(chunk);
+        counts[1] += chunk.size();
+
+        if (progress != null) progress.onProgress(counts[0], reader.bytesRead());
+        return new Result(counts[0], counts[1], counts[2], counts[3], cancelled[0]);
+    }
+
+    /** Background **/
+    // Run an export on the transfer thread, callbacks are posted to the main thread
+    // The channel is closed when done
+    static Task exportAsync(SessionHistory history, WritableByteChannel channel, SessionCodec.Format format,
+                            ProgressListener progress, ResultListener listener) {
+        Task task = new Task();
+        getExecutor().execute(() -> {
+            try {
+                Result result = export(history, channel, format, task, postProgress(progress));
+                post(() -> listener.onFinished(result));
+            } catch (IOException e) {
+                post(() -> listener.onError(e));
+            } finally {
+                closeQuietly(channel);
+            }
+        });
+        return task;
+    }
+
+    static Task importAsync(SessionHistory history, ReadableByteChannel channel,
+                            ProgressListener progress, ResultListener listener) {
+        Task task = new Task();
+        getExecutor().execute(() -> {
+            try {
+                Result result = importFrom(history, channel, task, postProgress(progress));
+                post(() -> listener.onFinished(result));
+            } catch (IOException e) {
+                post(() -> listener.onError(e));
+            } finally {
+                closeQuietly(channel);
+            }
+        });
+        return task;
+    }
+
+    private static ProgressListener postProgress(ProgressListener progress) {
+        if (progress == null) return null;
+        return (records, bytes) -> post(() -> progress.onProgress(records, bytes));
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null)
+            executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "SessionTransfer"));
+        return executor;
+    }
+
+    private static synchronized void post(Runnable runnable) {
+        if (mainHandler == null) mainHandler = new Handler(Looper.getMainLooper());
+        mainHandler.post(runnable);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+    /** Background **/
+}
@@ -0,0 +1,29 @@
+package orion.app.timer;
+
+// A subject (task or project) that sessions are tagged with
+// Immutable: the catalog replaces the instance when the name or totals change.
+final class Subject {
+    // Sessions without a subject
+    static final long NONE = 0L;
+
+    final long id;
+    final String name;
+    // Running totals over the tagged sessions in the history
+    final int sessionCount;
+    final long totalMillis;
+
+    Subject(long id, String name, int sessionCount, long totalMillis) {
+        this.id = id;
+        this.name = name;
+        this.sessionCount = sessionCount;
+        this.totalMillis = totalMillis;
+    }
+
+    Subject withName(String name) {
+        return new Subject(id, name, sessionCount, totalMillis);
+    }
+
+    Subject plusSession(long focusedMillis) {
+        return new Subject(id, name, sessionCount + 1, totalMillis + focusedMillis);
+    }
+}
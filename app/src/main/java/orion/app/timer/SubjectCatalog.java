@@ -0,0 +1,235 @@
+package orion.app.timer;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.util.LongSparseArray;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Persistent catalog of subjects, held entirely in memory once loaded
+// Lookups by id go through a LongSparseArray (no boxing), so starting a session
+// or rendering history never reads the file. Totals are updated per appended session.
+final class SubjectCatalog implements SessionHistory.Listener {
+    private static final String TAG = "SubjectCatalog";
+    static final String FILE_NAME = "subjects.csv";
+
+    private static SubjectCatalog instance;
+
+    private final AtomicFile file;
+    private final LongSparseArray<Subject> subjects = new LongSparseArray<>();
+    private final Map<String, Subject> byName = new HashMap<>();
+    private boolean isLoaded = false;
+
+    // Saves are coalesced: at most one pending write on this thread
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "SubjectCatalog"));
+    private boolean isSavePending = false;
+
+    static synchronized SubjectCatalog get(Context context) {
+        if (instance == null) {
+            instance = new SubjectCatalog(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+            MemoryTrim.register(context);
+        }
+        return instance;
+    }
+
+    // Drop the instance so the next get() reads the file again (tests)
+    static synchronized void resetForTest() {
+        if (instance != null) instance.writer.shutdown();
+        instance = null;
+    }
+
+    SubjectCatalog(File file) {
+        this.file = new AtomicFile(file);
+    }
+
+    // Load off the main thread before the first lookup, e.g. from onCreate
+    void preloadAsync() {
+        writer.execute(this::ensureLoaded);
+    }
+
+    /** Lookup **/
+    // Subject for an id, or null for Subject.NONE and unknown ids
+    synchronized Subject find(long id) {
+        ensureLoaded();
+        return id == Subject.NONE ? null : subjects.get(id);
+    }
+
+    synchronized Subject findByName(String name) {
+        ensureLoaded();
+        return byName.get(name.trim());
+    }
+
+    // Subjects in id (creation) order
+    synchronized List<Subject> getAll() {
+        ensureLoaded();
+        List<Subject> all = new ArrayList<>(subjects.size());
+        for (int i = 0; i < subjects.size(); i++) all.add(subjects.valueAt(i));
+        return all;
+    }
+    /** Lookup **/
+
+    /** Edit **/
+    synchronized Subject getOrCreate(String name) {
+        name = sanitize(name);
+        Subject subject = findByName(name);
+        if (subject != null) return subject;
+
+        long id = SessionRecord.newId(System.currentTimeMillis());
+        while (id == Subject.NONE || subjects.get(id) != null) id++;
+        subject = new Subject(id, name, 0, 0L);
+        put(subject);
+        scheduleSave();
+        return subject;
+    }
+
+    // False if the subject is unknown or another subject already has the name
+    synchronized boolean rename(long id, String name) {
+        Subject subject = find(id);
+        if (subject == null) return false;
+        name = sanitize(name);
+        Subject owner = byName.get(name);
+        if (owner != null && owner.id != id) return false;
+        removeName(subject);
+        put(subject.withName(name));
+        scheduleSave();
+        return true;
+    }
+
+    synchronized void remove(long id) {
+        Subject subject = find(id);
+        if (subject == null) return;
+        subjects.remove(id);
+        removeName(subject);
+        scheduleSave();
+    }
+
+    // Add one session to the running totals of its subject
+    synchronized void addSession(long id, long focusedMillis) {
+        Subject subject = find(id);
+        if (subject == null) return;
+        put(subject.plusSession(focusedMillis));
+        scheduleSave();
+    }
+
+    @Override
+    public void onAppended(List<SessionRecord> records) {
+        synchronized (this) {
+            for (SessionRecord record : records)
+                if (record.subjectId != Subject.NONE) addSession(record.subjectId, record.durationMillis);
+        }
+    }
+    /** Edit **/
+
+    // Names are unique: a name held by another subject (an older file) keeps its first owner
+    private void put(Subject subject) {
+        subjects.put(subject.id, subject);
+        Subject owner = byName.get(subject.name);
+        if (owner == null || owner.id == subject.id) byName.put(subject.name, subject);
+    }
+
+    private void removeName(Subject subject) {
+        Subject owner = byName.get(subject.name);
+        if (owner != null && owner.id == subject.id) byName.remove(subject.name);
+    }
+
+    // Names are stored as the last CSV field, so only line breaks need replacing
+    private static String sanitize(String name) {
+        return name.replace('\n', ' ').replace('\r', ' ').trim();
+    }
+
+    /** Persistence **/
+    // One subject per line: id,sessions,totalMillis,name
+    private synchronized void ensureLoaded() {
+        if (isLoaded) return;
+        isLoaded = true;
+        if (!file.getBaseFile().exists()) return;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openRead(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", 4);
+                if (fields.length < 4) continue;
+                try {
+                    put(new Subject(Long.parseLong(fields[0]), fields[3],
+                            Integer.parseInt(fields[1]), Long.parseLong(fields[2])));
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Skipping malformed subject: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot read subjects", e);
+        }
+    }
+
+    private synchronized void scheduleSave() {
+        if (isSavePending) return;
+        isSavePending = true;
+        writer.execute(this::save);
+    }
+
+    private void save() {
+        List<Subject> snapshot;
+        synchronized (this) {
+            isSavePending = false;
+            snapshot = getAll();
+        }
+
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            Writer text = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (Subject subject : snapshot) {
+                text.write(Long.toString(subject.id));
+                text.write(',');
+                text.write(Integer.toString(subject.sessionCount));
+                text.write(',');
+                text.write(Long.toString(subject.totalMillis));
+                text.write(',');
+                text.write(subject.name);
+                text.write('\n');
+            }
+            text.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot save subjects", e);
+            if (out != null) file.failWrite(out);
+        }
+    }
+
+    // Drop the in-memory catalog in the background, it is reloaded on next lookup
+    synchronized void trimMemory(int level) {
+        // A pending save writes from memory, keep it until then
+        if (level < ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || isSavePending || !isLoaded) return;
+        subjects.clear();
+        byName.clear();
+        isLoaded = false;
+    }
+
+    // Rough heap size of the loaded catalog
+    synchronized long bytesHeld() {
+        long bytes = 0;
+        for (int i = 0; i < subjects.size(); i++) bytes += 64 + subjects.valueAt(i).name.length() * 2L;
+        return bytes;
+    }
+
+    // Block until pending saves are written (tests)
+    void awaitSaved() throws Exception {
+        writer.submit(() -> { }).get();
+    }
+    /** Persistence **/
+}
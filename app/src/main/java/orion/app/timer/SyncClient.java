@@ -0,0 +1,391 @@
+package orion.app.timer;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Device side of the sync protocol, see SyncProtocol
+// Sessions recorded here are numbered and queued in an append-only outbox file until the
+// server acknowledges them. Sessions from other devices are appended to the history like
+// an import. The active timer is mirrored as the latest command, reconciled to a local
+// deadline through the estimated server clock offset.
+final class SyncClient implements SessionHistory.Listener {
+    private static final String TAG = "SyncClient";
+    static final String STATE_FILE_NAME = "sync_state.bin";
+    static final String OUTBOX_FILE_NAME = "sync_outbox.bin";
+    // Gives up after this many round trips without progress
+    private static final int MAX_IDLE_ROUND_TRIPS = 3;
+
+    interface TimerListener {
+        // Another device's command won, remainingMillis is already rebased onto this device
+        void onRemoteTimer(SyncProtocol.TimerState state, long remainingMillis);
+    }
+
+    // Outcome of one sync()
+    static final class Result {
+        final int pushed;
+        final int pulled;
+        final int roundTrips;
+        final long bytesSent;
+        final long bytesReceived;
+
+        Result(int pushed, int pulled, int roundTrips, long bytesSent, long bytesReceived) {
+            this.pushed = pushed;
+            this.pulled = pulled;
+            this.roundTrips = roundTrips;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+    }
+
+    // No sync server is configured yet: every exchange fails and changes stay in the outbox
+    static final SyncProtocol.Transport OFFLINE = request -> {
+        throw new IOException("No sync server configured");
+    };
+
+    private static SyncClient instance;
+
+    private final SessionHistory history;
+    private final SyncProtocol.Transport transport;
+    private final AtomicFile stateFile;
+    private final File outboxFile;
+    private volatile TimerListener timerListener;
+    // Background syncs, one round trip sequence at a time
+    private final ExecutorService syncThread = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+
+    // Guards the persisted state, outbox and timer commands, never held across a round trip
+    private final Object lock = new Object();
+
+    // Persisted State
+    private long deviceId;
+    private long localSeq = 0;
+    private long ackSeq = 0;
+    private long clockOffset = 0;
+    private final Map<Long, Long> clock = new HashMap<>();
+
+    // Unacknowledged own changes in seq order
+    private final ArrayDeque<SyncProtocol.Change> outbox = new ArrayDeque<>();
+    // Thread applying remote records, its appends must not be queued again
+    private volatile Thread applyingThread;
+    // Own timer command not yet sent, and the last command applied or sent
+    private SyncProtocol.TimerState pendingTimer;
+    private SyncProtocol.TimerState knownTimer;
+
+    // Client of this app's history, created by TimerService on the worker thread (reads its files)
+    static synchronized SyncClient get(Context context) {
+        if (instance == null)
+            instance = new SyncClient(context.getApplicationContext().getFilesDir(), SessionHistory.get(context), OFFLINE);
+        return instance;
+    }
+
+    // Drop the instance so the next get() reads the files again (tests)
+    static synchronized void resetForTest() {
+        if (instance != null) instance.syncThread.shutdown();
+        instance = null;
+    }
+
+    SyncClient(File dir, SessionHistory history, SyncProtocol.Transport transport) {
+        this.history = history;
+        this.transport = transport;
+        stateFile = new AtomicFile(new File(dir, STATE_FILE_NAME));
+        outboxFile = new File(dir, OUTBOX_FILE_NAME);
+        loadState();
+        loadOutbox();
+        history.addListener(this);
+    }
+
+    void setTimerListener(TimerListener listener) {
+        this.timerListener = listener;
+    }
+
+    long getDeviceId() {
+        return deviceId;
+    }
+
+    int pendingCount() {
+        synchronized (lock) {
+            return outbox.size();
+        }
+    }
+
+    /** Local Changes **/
+    @Override
+    public void onAppended(List<SessionRecord> records) {
+        if (Thread.currentThread() == applyingThread) return;
+        enqueue(records);
+    }
+
+    // Queue the whole existing history, e.g. when sync is first turned on
+    void enqueueHistory() throws IOException {
+        List<SessionRecord> records = new ArrayList<>();
+        history.forEach(record -> {
+            if (record.isValid()) records.add(record);
+            return true;
+        });
+        enqueue(records);
+    }
+
+    private void enqueue(List<SessionRecord> records) {
+        if (records.isEmpty()) return;
+        synchronized (lock) {
+            SyncProtocol.Output out = new SyncProtocol.Output(records.size() * 16);
+            for (SessionRecord record : records) {
+                SyncProtocol.Change change = new SyncProtocol.Change(deviceId, ++localSeq, record);
+                outbox.add(change);
+                out.writeVarint(change.seq);
+                SyncProtocol.writeRecord(out, record, 0);
+            }
+            try (FileOutputStream stream = new FileOutputStream(outboxFile, true)) {
+                stream.write(out.toByteArray());
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot write outbox", e);
+            }
+            saveState();
+        }
+    }
+
+    // Latest local timer command, times in local wall clock millis
+    void setLocalTimer(boolean isRunning, boolean isPaused, long deadlineWallMillis,
+                       long pausedRemainingMillis, long durationMillis, long subjectId) {
+        synchronized (lock) {
+            pendingTimer = new SyncProtocol.TimerState(deviceId, System.currentTimeMillis(), isRunning, isPaused,
+                    deadlineWallMillis, pausedRemainingMillis, durationMillis, subjectId);
+        }
+    }
+    /** Local Changes **/
+
+    /** Sync **/
+    // sync() on the sync thread, a failure is logged and the changes wait for the next one
+    void syncAsync() {
+        syncThread.execute(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                Log.w(TAG, "Sync failed: " + e.getMessage());
+            }
+        });
+    }
+
+    // Push all queued changes and pull everything missing, in batches
+    synchronized Result sync() throws IOException {
+        int pushed = 0, pulled = 0, roundTrips = 0, idle = 0;
+        long bytesSent = 0, bytesReceived = 0;
+        LongHashSet knownIds = null;
+
+        while (true) {
+            List<SyncProtocol.Change> pushes = peekOutbox(SyncProtocol.BATCH_SIZE);
+            SyncProtocol.TimerState sending;
+            SyncProtocol.TimerState timer;
+            long[] origins, seqs;
+            synchronized (lock) {
+                sending = pendingTimer;
+                // Timer times travel on the server's clock
+                timer = sending == null ? null : sending.shifted(clockOffset);
+                origins = new long[clock.size()];
+                seqs = new long[clock.size()];
+                int i = 0;
+                for (Map.Entry<Long, Long> entry : clock.entrySet()) {
+                    origins[i] = entry.getKey();
+                    seqs[i++] = entry.getValue();
+                }
+            }
+            byte[] request = SyncProtocol.encodeRequest(new SyncProtocol.Request(deviceId, origins, seqs, pushes,
+                    timer, SyncProtocol.BATCH_SIZE));
+
+            long sentAt = System.currentTimeMillis();
+            byte[] bytes = transport.exchange(request);
+            long receivedAt = System.currentTimeMillis();
+            SyncProtocol.Response response = SyncProtocol.decodeResponse(bytes);
+            roundTrips++;
+            bytesSent += request.length;
+            bytesReceived += bytes.length;
+            int acked = acknowledge(response.ackSeq);
+            pushed += acked;
+            synchronized (lock) {
+                // Server time was read about halfway through the round trip
+                clockOffset = response.serverMillis - (sentAt + receivedAt) / 2;
+                if (timer != null) {
+                    knownTimer = timer;
+                    if (pendingTimer == sending) pendingTimer = null;
+                }
+            }
+
+            if (!response.changes.isEmpty()) {
+                if (knownIds == null) knownIds = history.loadIds();
+                applyChanges(response.changes, knownIds);
+                pulled += response.changes.size();
+            }
+            applyTimer(response.timer);
+            saveState();
+
+            boolean hasPending = pendingCount() > 0;
+            if (!response.hasMore && !hasPending) break;
+            idle = acked == 0 && response.changes.isEmpty() ? idle + 1 : 0;
+            if (idle >= MAX_IDLE_ROUND_TRIPS) throw new IOException("Sync made no progress");
+        }
+        return new Result(pushed, pulled, roundTrips, bytesSent, bytesReceived);
+    }
+
+    private List<SyncProtocol.Change> peekOutbox(int limit) {
+        synchronized (lock) {
+            List<SyncProtocol.Change> batch = new ArrayList<>(Math.min(limit, outbox.size()));
+            for (SyncProtocol.Change change : outbox) {
+                if (batch.size() == limit) break;
+                batch.add(change);
+            }
+            return batch;
+        }
+    }
+
+    // Drop acknowledged changes, returns how many
+    private int acknowledge(long seq) {
+        synchronized (lock) {
+            int count = 0;
+            while (!outbox.isEmpty() && outbox.peekFirst().seq <= seq) {
+                outbox.pollFirst();
+                count++;
+            }
+            ackSeq = Math.max(ackSeq, seq);
+            // Everything delivered: start a new outbox file
+            if (outbox.isEmpty() && outboxFile.exists() && !outboxFile.delete())
+                Log.w(TAG, "Cannot delete outbox");
+            return count;
+        }
+    }
+
+    // The clock only advances once the records are in the history, so a failed append
+    // is pulled again on the next sync instead of being skipped for good
+    private void applyChanges(List<SyncProtocol.Change> changes, LongHashSet knownIds) throws IOException {
+        List<SessionRecord> records = new ArrayList<>(changes.size());
+        Map<Long, Long> received = new HashMap<>();
+        synchronized (lock) {
+            for (SyncProtocol.Change change : changes) {
+                Long seen = received.get(change.origin);
+                if (seen == null) seen = clock.get(change.origin);
+                if (seen != null && change.seq <= seen) continue;
+                received.put(change.origin, change.seq);
+                // Same session already here, e.g. imported on both devices
+                if (change.record.isValid() && knownIds.add(change.record.id)) records.add(change.record);
+            }
+        }
+        applyingThread = Thread.currentThread();
+        try {
+            history.appendAll(records);
+        } finally {
+            applyingThread = null;
+        }
+        synchronized (lock) {
+            clock.putAll(received);
+        }
+    }
+
+    // Latest command wins; the deadline is rebased from server time onto this device
+    private void applyTimer(SyncProtocol.TimerState remote) {
+        SyncProtocol.TimerState local;
+        synchronized (lock) {
+            if (remote == null || remote.isSameCommand(knownTimer)) return;
+            if (!remote.isNewerThan(knownTimer)) return;
+            knownTimer = remote;
+            if (remote.origin == deviceId) return;
+            local = remote.shifted(-clockOffset);
+        }
+
+        long remaining = 0;
+        if (local.isRunning)
+            remaining = local.isPaused ? local.pausedRemainingMillis
+                    : Math.max(0, local.deadlineMillis - System.currentTimeMillis());
+        TimerListener listener = timerListener;
+        if (listener != null) listener.onRemoteTimer(local, remaining);
+    }
+    /** Sync **/
+
+    /** Persistence **/
+    // deviceId, localSeq, ackSeq, clockOffset, clock entries
+    private void loadState() {
+        try (InputStream in = stateFile.openRead()) {
+            SyncProtocol.Input input = new SyncProtocol.Input(readAll(in));
+            deviceId = input.readLong();
+            localSeq = input.readVarint();
+            ackSeq = input.readVarint();
+            clockOffset = input.readSignedVarint();
+            int size = input.readCount();
+            for (int i = 0; i < size; i++) clock.put(input.readLong(), input.readVarint());
+        } catch (IOException e) {
+            if (stateFile.getBaseFile().exists()) Log.e(TAG, "Cannot read sync state", e);
+            deviceId = 0;
+        }
+        while (deviceId == 0) {
+            deviceId = new Random().nextLong() & Long.MAX_VALUE;
+            localSeq = 0;
+            ackSeq = 0;
+        }
+    }
+
+    // Changes past ackSeq, the file is only truncated once all were delivered
+    // The outbox is appended before the state is saved, so after a crash in between it
+    // holds seqs past the saved localSeq; they must not be handed out again.
+    private void loadOutbox() {
+        if (!outboxFile.exists()) return;
+        try (InputStream in = new FileInputStream(outboxFile)) {
+            SyncProtocol.Input input = new SyncProtocol.Input(readAll(in));
+            while (input.hasRemaining()) {
+                long seq = input.readVarint();
+                SessionRecord record = SyncProtocol.readRecord(input, 0);
+                localSeq = Math.max(localSeq, seq);
+                if (seq > ackSeq) outbox.add(new SyncProtocol.Change(deviceId, seq, record));
+            }
+        } catch (IOException e) {
+            // A torn last entry is dropped, earlier ones are kept
+            Log.e(TAG, "Cannot read outbox", e);
+        }
+    }
+
+    private void saveState() {
+        SyncProtocol.Output out = new SyncProtocol.Output(64);
+        synchronized (lock) {
+            out.writeLong(deviceId);
+            out.writeVarint(localSeq);
+            out.writeVarint(ackSeq);
+            out.writeSignedVarint(clockOffset);
+            out.writeVarint(clock.size());
+            for (Map.Entry<Long, Long> entry : clock.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeVarint(entry.getValue());
+            }
+        }
+
+        FileOutputStream stream = null;
+        try {
+            stream = stateFile.startWrite();
+            stream.write(out.toByteArray());
+            stateFile.finishWrite(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot save sync state", e);
+            if (stream != null) stateFile.failWrite(stream);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) bytes.write(buffer, 0, read);
+        return bytes.toByteArray();
+    }
+    /** Persistence **/
+}
@@ -0,0 +1,367 @@
+package orion.app.timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Messages of the history/timer sync protocol and their binary encoding
+// Every change is numbered by its origin device (seq 1, 2, ...), so a device's
+// vector clock (origin -> highest seq seen) is all a server needs to send only the
+// missing deltas. One request carries a batch of pushes and asks for a batch of pulls.
+// Integers are varints, records are delta-encoded against the previous one (~10 bytes each).
+final class SyncProtocol {
+    static final int VERSION = 1;
+    // Changes per push or pull batch
+    static final int BATCH_SIZE = 1024;
+
+    // Record Flags
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_SUBJECT = 2;
+    // Timer Flags
+    private static final int FLAG_RUNNING = 1;
+    private static final int FLAG_PAUSED = 2;
+
+    private SyncProtocol() {
+    }
+
+    // Sends one encoded request and returns the encoded response
+    interface Transport {
+        byte[] exchange(byte[] request) throws IOException;
+    }
+
+    /** Messages **/
+    // A history record numbered by the device it was recorded on
+    static final class Change {
+        final long origin;
+        final long seq;
+        final SessionRecord record;
+
+        Change(long origin, long seq, SessionRecord record) {
+            this.origin = origin;
+            this.seq = seq;
+            this.record = record;
+        }
+    }
+
+    // Active timer as last commanded on some device
+    // Times are wall clock millis on the server's clock, so devices with skewed
+    // clocks still agree on the deadline and on which command came last.
+    static final class TimerState {
+        final long origin;
+        final long commandMillis;
+        final boolean isRunning;
+        final boolean isPaused;
+        final long deadlineMillis;
+        final long pausedRemainingMillis;
+        final long durationMillis;
+        final long subjectId;
+
+        TimerState(long origin, long commandMillis, boolean isRunning, boolean isPaused, long deadlineMillis,
+                   long pausedRemainingMillis, long durationMillis, long subjectId) {
+            this.origin = origin;
+            this.commandMillis = commandMillis;
+            this.isRunning = isRunning;
+            this.isPaused = isPaused;
+            this.deadlineMillis = deadlineMillis;
+            this.pausedRemainingMillis = pausedRemainingMillis;
+            this.durationMillis = durationMillis;
+            this.subjectId = subjectId;
+        }
+
+        // Latest command wins, ties go to the larger device id
+        boolean isNewerThan(TimerState other) {
+            if (other == null) return true;
+            if (commandMillis != other.commandMillis) return commandMillis > other.commandMillis;
+            return origin > other.origin;
+        }
+
+        boolean isSameCommand(TimerState other) {
+            return other != null && origin == other.origin && commandMillis == other.commandMillis;
+        }
+
+        TimerState shifted(long offsetMillis) {
+            return new TimerState(origin, commandMillis + offsetMillis, isRunning, isPaused,
+                    deadlineMillis == 0 ? 0 : deadlineMillis + offsetMillis, pausedRemainingMillis, durationMillis, subjectId);
+        }
+    }
+
+    static final class Request {
+        final long deviceId;
+        // Parallel arrays: origin device -> highest seq received
+        final long[] clockOrigins;
+        final long[] clockSeqs;
+        // Own changes, consecutive seqs
+        final List<Change> pushes;
+        final TimerState timer;
+        final int pullLimit;
+
+        Request(long deviceId, long[] clockOrigins, long[] clockSeqs, List<Change> pushes, TimerState timer, int pullLimit) {
+            this.deviceId = deviceId;
+            this.clockOrigins = clockOrigins;
+            this.clockSeqs = clockSeqs;
+            this.pushes = pushes;
+            this.timer = timer;
+            this.pullLimit = pullLimit;
+        }
+    }
+
+    static final class Response {
+        final long serverMillis;
+        // Highest own seq the server holds
+        final long ackSeq;
+        final List<Change> changes;
+        final boolean hasMore;
+        final TimerState timer;
+
+        Response(long serverMillis, long ackSeq, List<Change> changes, boolean hasMore, TimerState timer) {
+            this.serverMillis = serverMillis;
+            this.ackSeq = ackSeq;
+            this.changes = changes;
+            this.hasMore = hasMore;
+            this.timer = timer;
+        }
+    }
+    /** Messages **/
+
+    /** Encoding **/
+    static byte[] encodeRequest(Request request) {
+        Output out = new Output(64 + request.pushes.size() * 12);
+        out.writeVarint(VERSION);
+        out.writeLong(request.deviceId);
+        out.writeVarint(request.clockOrigins.length);
+        for (int i = 0; i < request.clockOrigins.length; i++) {
+            out.writeLong(request.clockOrigins[i]);
+            out.writeVarint(request.clockSeqs[i]);
+        }
+        writeChanges(out, request.pushes);
+        writeTimer(out, request.timer);
+        out.writeVarint(request.pullLimit);
+        return out.toByteArray();
+    }
+
+    static Request decodeRequest(byte[] bytes) throws IOException {
+        Input in = new Input(bytes);
+        checkVersion(in);
+        long deviceId = in.readLong();
+        int clockSize = in.readCount();
+        long[] origins = new long[clockSize];
+        long[] seqs = new long[clockSize];
+        for (int i = 0; i < clockSize; i++) {
+            origins[i] = in.readLong();
+            seqs[i] = in.readVarint();
+        }
+        List<Change> pushes = readChanges(in);
+        TimerState timer = readTimer(in);
+        int pullLimit = (int) Math.min(in.readVarint(), Integer.MAX_VALUE);
+        return new Request(deviceId, origins, seqs, pushes, timer, pullLimit);
+    }
+
+    static byte[] encodeResponse(Response response) {
+        Output out = new Output(64 + response.changes.size() * 12);
+        out.writeVarint(VERSION);
+        out.writeVarint(response.serverMillis);
+        out.writeVarint(response.ackSeq);
+        writeChanges(out, response.changes);
+        out.writeVarint(response.hasMore ? 1 : 0);
+        writeTimer(out, response.timer);
+        return out.toByteArray();
+    }
+
+    static Response decodeResponse(byte[] bytes) throws IOException {
+        Input in = new Input(bytes);
+        checkVersion(in);
+        long serverMillis = in.readVarint();
+        long ackSeq = in.readVarint();
+        List<Change> changes = readChanges(in);
+        boolean hasMore = in.readVarint() != 0;
+        TimerState timer = readTimer(in);
+        return new Response(serverMillis, ackSeq, changes, hasMore, timer);
+    }
+
+    private static void checkVersion(Input in) throws IOException {
+        long version = in.readVarint();
+        if (version != VERSION) throw new IOException("Unsupported sync version " + version);
+    }
+
+    // Runs of consecutive seqs from one origin: origin, first seq, count, records
+    private static void writeChanges(Output out, List<Change> changes) {
+        int runs = 0;
+        for (int i = 0; i < changes.size(); i++)
+            if (i == 0 || !continues(changes.get(i - 1), changes.get(i))) runs++;
+        out.writeVarint(runs);
+
+        long previousStart = 0;
+        int i = 0;
+        while (i < changes.size()) {
+            int end = i + 1;
+            while (end < changes.size() && continues(changes.get(end - 1), changes.get(end))) end++;
+            out.writeLong(changes.get(i).origin);
+            out.writeVarint(changes.get(i).seq);
+            out.writeVarint(end - i);
+            for (; i < end; i++) {
+                writeRecord(out, changes.get(i).record, previousStart);
+                previousStart = changes.get(i).record.startMillis;
+            }
+        }
+    }
+
+    private static boolean continues(Change previous, Change next) {
+        return previous.origin == next.origin && previous.seq + 1 == next.seq;
+    }
+
+    private static List<Change> readChanges(Input in) throws IOException {
+        int runs = in.readCount();
+        List<Change> changes = new ArrayList<>();
+        long previousStart = 0;
+        for (int run = 0; run < runs; run++) {
+            long origin = in.readLong();
+            long seq = in.readVarint();
+            int count = in.readCount();
+            for (int i = 0; i < count; i++) {
+                SessionRecord record = readRecord(in, previousStart);
+                previousStart = record.startMillis;
+                changes.add(new Change(origin, seq + i, record));
+            }
+        }
+        return changes;
+    }
+
+    // Start as a delta from the previous record, id relative to SessionRecord.newId(start)
+    static void writeRecord(Output out, SessionRecord record, long previousStart) {
+        out.writeSignedVarint(record.startMillis - previousStart);
+        out.writeSignedVarint(record.id - (record.startMillis << 12));
+        out.writeVarint(record.durationMillis);
+        int flags = (record.completed ? FLAG_COMPLETED : 0) | (record.subjectId != Subject.NONE ? FLAG_SUBJECT : 0);
+        out.writeVarint(flags);
+        if (record.subjectId != Subject.NONE) out.writeLong(record.subjectId);
+    }
+
+    static SessionRecord readRecord(Input in, long previousStart) throws IOException {
+        long start = previousStart + in.readSignedVarint();
+        long id = (start << 12) + in.readSignedVarint();
+        long duration = in.readVarint();
+        long flags = in.readVarint();
+        long subjectId = (flags & FLAG_SUBJECT) != 0 ? in.readLong() : Subject.NONE;
+        return new SessionRecord(id, start, duration, (flags & FLAG_COMPLETED) != 0, subjectId);
+    }
+
+    private static void writeTimer(Output out, TimerState timer) {
+        if (timer == null) {
+            out.writeVarint(0);
+            return;
+        }
+        out.writeVarint(1);
+        out.writeLong(timer.origin);
+        out.writeVarint(timer.commandMillis);
+        out.writeVarint((timer.isRunning ? FLAG_RUNNING : 0) | (timer.isPaused ? FLAG_PAUSED : 0));
+        out.writeVarint(timer.deadlineMillis);
+        out.writeVarint(timer.pausedRemainingMillis);
+        out.writeVarint(timer.durationMillis);
+        out.writeLong(timer.subjectId);
+    }
+
+    private static TimerState readTimer(Input in) throws IOException {
+        if (in.readVarint() == 0) return null;
+        long origin = in.readLong();
+        long commandMillis = in.readVarint();
+        long flags = in.readVarint();
+        return new TimerState(origin, commandMillis, (flags & FLAG_RUNNING) != 0, (flags & FLAG_PAUSED) != 0,
+                in.readVarint(), in.readVarint(), in.readVarint(), in.readLong());
+    }
+    /** Encoding **/
+
+    /** Buffers **/
+    // Growable byte array with varint writers
+    static final class Output {
+        private byte[] bytes;
+        private int size = 0;
+
+        Output(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        // Zigzag, so small negative deltas stay short
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        // Ids are random 64-bit values, fixed width is shorter than a varint
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    static final class Input {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        Input(byte[] bytes) {
+            this(bytes, 0, bytes.length);
+        }
+
+        Input(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        boolean hasRemaining() {
+            return position < end;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= end) throw new IOException("Truncated sync message");
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readLong() throws IOException {
+            if (end - position < 8) throw new IOException("Truncated sync message");
+            long value = 0;
+            for (int i = 0; i < 8; i++) value = (value << 8) | (bytes[position++] & 0xFF);
+            return value;
+        }
+
+        // A count can never exceed the bytes left, which bounds allocations on bad input
+        int readCount() throws IOException {
+            long count = readVarint();
+            if (count > end - position) throw new IOException("Bad count " + count);
+            return (int) count;
+        }
+    }
+    /** Buffers **/
+}
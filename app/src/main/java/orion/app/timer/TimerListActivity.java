@@ -0,0 +1,151 @@
+package orion.app.timer;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import androidx.activity.EdgeToEdge;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Screen that lists the current session and the scheduled sessions
+// Every row is driven by one SecondTicker instead of a Handler per row
+public class TimerListActivity extends AppCompatActivity {
+    // Row id of the current session, scheduled entries never use 0
+    private static final long CURRENT_SESSION_ID = 0L;
+    private static final DateTimeFormatter START_FORMAT = DateTimeFormatter.ofPattern("HH:mm", Locale.getDefault());
+
+    private RecyclerView timerRecyclerView;
+    private LinearLayoutManager layoutManager;
+    private TimerListAdapter adapter;
+    private SecondTicker ticker;
+
+    // Start, pause, resume, adjust and stop all change a row
+    private final BroadcastReceiver timerStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            adapter.submitList(loadTimers());
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_timer_list);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.timer_list_main), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        initViews();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        LocalBroadcastManager broadcastManager = LocalBroadcastManager.getInstance(getApplicationContext());
+        broadcastManager.registerReceiver(timerStateReceiver, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_STATE_CHANGED));
+        broadcastManager.registerReceiver(timerStateReceiver, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_STOP));
+        // The session or the schedule may have changed while stopped
+        adapter.submitList(loadTimers());
+        ticker.start();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        LocalBroadcastManager.getInstance(getApplicationContext()).unregisterReceiver(timerStateReceiver);
+        ticker.stop();
+    }
+
+    // Initializae View Components
+    private void initViews() {
+        timerRecyclerView = findViewById(R.id.timer_recycler_view);
+        layoutManager = new LinearLayoutManager(this);
+        adapter = new TimerListAdapter();
+
+        timerRecyclerView.setLayoutManager(layoutManager);
+        timerRecyclerView.setHasFixedSize(true);
+        timerRecyclerView.setAdapter(adapter);
+        // Payload updates rebind in place, no cross-fade holders
+        RecyclerView.ItemAnimator animator = timerRecyclerView.getItemAnimator();
+        if (animator instanceof SimpleItemAnimator)
+            ((SimpleItemAnimator) animator).setSupportsChangeAnimations(false);
+
+        ticker = new SecondTicker(frameTimeMillis -> adapter.dispatchSecond(timerRecyclerView,
+                layoutManager.findFirstVisibleItemPosition(),
+                layoutManager.findLastVisibleItemPosition(),
+                SystemClock.uptimeMillis()));
+
+        // Rows scrolled into view are bound fresh, the ticker only needs to recompute its next wake-up
+        timerRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) ticker.poke();
+            }
+        });
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                ticker.poke();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                // A resumed row starts ticking again
+                ticker.poke();
+            }
+        });
+    }
+
+    // Current session first, then the scheduled sessions in start order
+    // A scheduled session is shown like a paused timer at its full duration
+    private List<TimerListItem> loadTimers() {
+        List<ScheduledSession> scheduled = SessionSchedule.get(this).getAll();
+        List<TimerListItem> timers = new ArrayList<>(scheduled.size() + 1);
+
+        TimerSnapshot snapshot = TimerService.getSnapshot(this);
+        if (snapshot.isRunning) {
+            String label = getString(R.string.timer_list_current);
+            long remainingMillis = snapshot.remainingMillis(SystemClock.elapsedRealtime());
+            // Rows tick on uptime, the snapshot deadline is on elapsedRealtime
+            if (snapshot.isPaused)
+                timers.add(TimerListItem.paused(CURRENT_SESSION_ID, label, snapshot.durationMillis, remainingMillis));
+            else
+                timers.add(TimerListItem.running(CURRENT_SESSION_ID, label, snapshot.durationMillis,
+                        SystemClock.uptimeMillis() + remainingMillis));
+        }
+
+        SubjectCatalog catalog = SubjectCatalog.get(this);
+        for (ScheduledSession session : scheduled) {
+            String start = LocalTime.ofInstant(Instant.ofEpochMilli(session.startMillis), ZoneId.systemDefault()).format(START_FORMAT);
+            Subject subject = catalog.find(session.subjectId);
+            String label = subject == null
+                    ? getString(R.string.timer_list_scheduled, start)
+                    : getString(R.string.timer_list_scheduled_subject, start, subject.name);
+            long durationMillis = session.durationSeconds * 1000L;
+            timers.add(TimerListItem.paused(session.id, label, durationMillis, durationMillis));
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,144 @@
+package orion.app.timer;
+
+import android.os.SystemClock;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+import orion.gz.pomodorotimer.TimerView;
+
+// Adapter for TimerListActivity
+// Rows own no Handler or listener; SecondTicker asks the adapter which visible rows changed.
+final class TimerListAdapter extends ListAdapter<TimerListItem, TimerListAdapter.TimerHolder> {
+    // Payload for a second change: only the dial and time text are rebound
+    static final Object PAYLOAD_SECOND = new Object();
+
+    private static final DiffUtil.ItemCallback<TimerListItem> DIFF = new DiffUtil.ItemCallback<TimerListItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull TimerListItem oldItem, @NonNull TimerListItem newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull TimerListItem oldItem, @NonNull TimerListItem newItem) {
+            return oldItem.sameContents(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull TimerListItem oldItem, @NonNull TimerListItem newItem) {
+            // Only the time moved (pause/resume/adjust), keep the label
+            return oldItem.label.equals(newItem.label) ? PAYLOAD_SECOND : null;
+        }
+    };
+
+    TimerListAdapter() {
+        super(DIFF);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    @NonNull
+    @Override
+    public TimerHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_timer, parent, false);
+        return new TimerHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TimerHolder holder, int position) {
+        TimerListItem item = getItem(position);
+        holder.labelTextview.setText(item.label);
+        // Holder may have been recycled from another row
+        holder.boundSecond = -1;
+        holder.bindTime(item, SystemClock.uptimeMillis());
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TimerHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        holder.bindTime(getItem(position), SystemClock.uptimeMillis());
+    }
+
+    // Called by SecondTicker for the visible range
+    // Posts a payload update for rows whose displayed second changed and
+    // returns millis until the next change among them (-1 if none are running)
+    long dispatchSecond(RecyclerView recyclerView, int first, int last, long nowUptime) {
+        long nextDelay = -1;
+        if (first == RecyclerView.NO_POSITION) return nextDelay;
+
+        for (int position = first; position <= last && position < getItemCount(); position++) {
+            TimerListItem item = getItem(position);
+            RecyclerView.ViewHolder holder = recyclerView.findViewHolderForAdapterPosition(position);
+            if (holder instanceof TimerHolder && ((TimerHolder) holder).boundSecond != item.displayedSecond(nowUptime))
+                notifyItemChanged(position, PAYLOAD_SECOND);
+
+            long delay = item.millisToNextSecond(nowUptime);
+            if (delay >= 0 && (nextDelay < 0 || delay < nextDelay)) nextDelay = delay;
+        }
+        return nextDelay;
+    }
+
+    static final class TimerHolder extends RecyclerView.ViewHolder {
+        final TimerView timerView;
+        final TextView timeTextview;
+        final TextView labelTextview;
+        // "HH:MM:SS" written in place, no String per second
+        private final char[] timeText = new char[8];
+        long boundSecond = -1;
+
+        TimerHolder(@NonNull View itemView) {
+            super(itemView);
+            timerView = itemView.findViewById(R.id.item_timer_view);
+            timeTextview = itemView.findViewById(R.id.item_time_textview);
+            labelTextview = itemView.findViewById(R.id.item_label_textview);
+            timerView.setTouchable(false);
+            timerView.setHapticEnabled(false);
+        }
+
+        void bindTime(TimerListItem item, long nowUptime) {
+            long second = item.displayedSecond(nowUptime);
+            if (second == boundSecond) return;
+            boundSecond = second;
+
+            timerView.setTimeMillis(second * 1000L);
+            int length = formatSeconds(second, timeText);
+            timeTextview.setText(timeText, 0, length);
+        }
+
+        // Format Remaining Time, same layout as TimerService.formatMillis
+        private static int formatSeconds(long totalSeconds, char[] out) {
+            long hours = totalSeconds / 3600;
+            long minutes = (totalSeconds / 60) % 60;
+            long seconds = totalSeconds % 60;
+
+            int i = 0;
+            if (hours > 0) {
+                hours = Math.min(hours, 99);
+                out[i++] = (char) ('0' + hours / 10);
+                out[i++] = (char) ('0' + hours % 10);
+                out[i++] = ':';
+            }
+            out[i++] = (char) ('0' + minutes / 10);
+            out[i++] = (char) ('0' + minutes % 10);
+            out[i++] = ':';
+            out[i++] = (char) ('0' + seconds / 10);
+            out[i++] = (char) ('0' + seconds % 10);
+            return i;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package orion.app.timer;
+
+// Immutable row model for TimerListActivity
+// A running timer is described by its deadline, so the model itself never changes per second.
+final class TimerListItem {
+    final long id;
+    final String label;
+    final long durationMillis;
+    // Uptime at which a running timer reaches zero, 0 when paused
+    final long deadlineUptime;
+    // Remaining time of a paused timer
+    final long pausedRemainingMillis;
+
+    TimerListItem(long id, String label, long durationMillis, long deadlineUptime, long pausedRemainingMillis) {
+        this.id = id;
+        this.label = label;
+        this.durationMillis = durationMillis;
+        this.deadlineUptime = deadlineUptime;
+        this.pausedRemainingMillis = pausedRemainingMillis;
+    }
+
+    static TimerListItem running(long id, String label, long durationMillis, long deadlineUptime) {
+        return new TimerListItem(id, label, durationMillis, deadlineUptime, 0);
+    }
+
+    static TimerListItem paused(long id, String label, long durationMillis, long remainingMillis) {
+        return new TimerListItem(id, label, durationMillis, 0, remainingMillis);
+    }
+
+    boolean isRunning() {
+        return deadlineUptime > 0;
+    }
+
+    long remainingMillis(long nowUptime) {
+        if (!isRunning()) return pausedRemainingMillis;
+        return Math.max(0, deadlineUptime - nowUptime);
+    }
+
+    // Second shown on screen, changes once per second while running
+    long displayedSecond(long nowUptime) {
+        return remainingMillis(nowUptime) / 1000;
+    }
+
+    // Millis until the displayed second changes, or -1 if it never will
+    // The second is floored, so at exactly 5000 ms left it turns to 4 after 1 ms
+    long millisToNextSecond(long nowUptime) {
+        long remaining = remainingMillis(nowUptime);
+        if (!isRunning() || remaining <= 0) return -1;
+        return remaining % 1000 + 1;
+    }
+
+    boolean sameContents(TimerListItem other) {
+        return label.equals(other.label)
+                && durationMillis == other.durationMillis
+                && deadlineUptime == other.deadlineUptime
+                && pausedRemainingMillis == other.pausedRemainingMillis;
+    }
+}
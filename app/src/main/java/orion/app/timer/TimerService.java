@@ -1,5 +1,6 @@
 package orion.app.timer;
 
+import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
@@ -12,9 +13,12 @@ import android.media.AudioAttributes;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.PowerManager;
 import android.os.SystemClock;
+import android.os.Trace;
 import android.provider.Settings;
 import android.util.Log;
 
@@ -24,11 +28,16 @@ import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.Locale;
+import java.util.Map;
 
 public class TimerService extends Service {
     // Tag for Logging
     private static final String TAG = "TimerService";
+    // Per-tick logging, enable with "adb shell setprop log.tag.TimerService VERBOSE"
+    private static final boolean DEBUG_TICK = Log.isLoggable(TAG, Log.VERBOSE);
 
     // ACTION STATE
     public static final String ACTION_START = "ACTION_START";
@@ -38,6 +47,8 @@ public class TimerService extends Service {
     public static final String ACTION_STOP = "ACTION_STOP";
     public static final String ACTION_MUTE = "ACTION_MUTE";
     public static final String ACTION_UNMUTE = "ACTION_UNMUTE";
+    // Sent by the deadline alarm, ends the session even if the tick was held back in suspend
+    static final String ACTION_DEADLINE = "ACTION_DEADLINE";
 
     // Broadcast Actions
     public static final String BROADCAST_ACTION_TIMER_STATE_CHANGED = "TIMER_STATE_CHANGED";
@@ -53,9 +64,19 @@ public class TimerService extends Service {
     public static final String KEY_IS_RUNNING = "isRunning";
     public static final String KEY_IS_PAUSED = "isPaused";
     public static final String KEY_IS_MUTED = "isMuted";
+    // Absolute deadline, so a restarted service resumes without replaying commands
+    public static final String KEY_DEADLINE_ELAPSED = "deadlineElapsed";
+    public static final String KEY_PAUSED_REMAINING = "pausedRemaining";
+    public static final String KEY_DURATION_MILLIS = "durationMillis";
+    public static final String KEY_START_WALL_TIME = "startWallTime";
+    // Wall clock deadline, the only deadline that survives a reboot
+    public static final String KEY_DEADLINE_WALL_TIME = "deadlineWallTime";
+    public static final String KEY_BOOT_COUNT = "bootCount";
+    public static final String KEY_SUBJECT_ID = "subjectId";
 
     // Intent Extra Keys
     public static final String BROADCAST_EXTRA_REMAINING_TIME = "REMAINING_TIME";
+    public static final String BROADCAST_EXTRA_IS_PAUSED = "IS_PAUSED";
     public static final String EXTRA_ADJUSTMENT_TIME = "EXTRA_ADJUSTMENT_TIME";
     public static final String EXTRA_SHOW_TIMER_FRAGMENT = "EXTRA_SHOW_TIMER_FRAGMENT";
 
@@ -64,19 +85,49 @@ public class TimerService extends Service {
     public static final String BUNDLE_SUBJECT_NAME = "SUBJECT_NAME";
     public static final String BUNDLE_SUBJECT_ID = "SUBJECT_ID";
     public static final String BUNDLE_START_TIME = "START_TIME";
+    // Set when the start comes from a SessionSchedule alarm
+    public static final String BUNDLE_SCHEDULED_ID = "SCHEDULED_ID";
 
     // Notification Channels and IDs
-    private static final String CHANNEL_ID = "timer_channel";
-    private static final String TEMP_CHANNEL_ID = "timer_temp_channel";
-    private static final String TEMP_MUTE_CHANNEL_ID = "timer_temp_muted_channel";
-    private static final int NOTIFICATION_ID = 1;
-    private static final int TEMP_NOTIFICATION_ID = 2;
+    static final String CHANNEL_ID = "timer_channel";
+    static final String TEMP_CHANNEL_ID = "timer_temp_channel";
+    static final String TEMP_MUTE_CHANNEL_ID = "timer_temp_muted_channel";
+    static final int NOTIFICATION_ID = 1;
+    static final int TEMP_NOTIFICATION_ID = 2;
+    // Notification action request codes, one PendingIntent per action
+    private static final int REQUEST_PAUSE = 10;
+    private static final int REQUEST_RESUME = 11;
+    private static final int REQUEST_ADD_MINUTE = 12;
+    private static final int REQUEST_STOP = 13;
+    private static final int REQUEST_DEADLINE = 14;
+    // CPU kept awake from the deadline alarm until the chime has played
+    private static final long DEADLINE_WAKE_MILLIS = 5000;
+
+    // Channels are created once per process, not per alert
+    private static boolean areChannelsCreated = false;
+
+    // Notification actions and content intent, built once per service
+    private PendingIntent contentIntent;
+    private NotificationCompat.Action pauseAction;
+    private NotificationCompat.Action resumeAction;
+    private NotificationCompat.Action addMinuteAction;
+    private NotificationCompat.Action stopAction;
 
     // Time Variables
+    // Commands, ticks, notifications and prefs run on this thread, not the main looper
+    private HandlerThread workerThread;
     private Handler handler;
     private Runnable timerRunnable;
-
-    private long startTimeMillis = 0L;
+    // Uptime at which the next tick is expected to run
+    private long nextTickUptime = 0L;
+    // Ticks run on uptime, which stops in suspend; the alarm wakes the device at the deadline
+    private AlarmManager alarmManager;
+    private PowerManager.WakeLock deadlineWakeLock;
+
+    // elapsedRealtime at which the running timer reaches zero
+    private long deadlineElapsed = 0L;
+    // Wall clock start, for the session history
+    private long startWallMillis = 0L;
     private long durationMillis = 0L;
     private long remainingMillis = 0L;
 
@@ -85,10 +136,89 @@ public class TimerService extends Service {
     private boolean isPaused = false;
     private boolean isMuted = false;
     private String startTime;
+    private long subjectId = Subject.NONE;
+
+    // Timer commands are mirrored to other devices through the sync client
+    private SyncClient syncClient;
+    // Last state sent to or received from other devices
+    private TimerSnapshot syncedSnapshot = TimerSnapshot.IDLE;
+
+    // State published to the UI, replaced on every state change
+    private static volatile TimerSnapshot snapshot = TimerSnapshot.IDLE;
+    // False until the service published or the prefs were read once in this process
+    private static volatile boolean isSnapshotLoaded = false;
+
+    // Runtime Counters
+    private final TimerStats stats = new TimerStats();
+
+    // Latest service state, readable from any thread without disk access
+    static TimerSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Forget the process-wide state, as after a process restart (tests)
+    static synchronized void resetForTest() {
+        snapshot = TimerSnapshot.IDLE;
+        isSnapshotLoaded = false;
+        areChannelsCreated = false;
+    }
+
+    // Latest state, falling back to the persisted session once per cold process
+    static TimerSnapshot getSnapshot(Context context) {
+        if (!isSnapshotLoaded) {
+            synchronized (TimerService.class) {
+                if (!isSnapshotLoaded) {
+                    SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                    snapshot = readSnapshot(context, prefs);
+                    isSnapshotLoaded = true;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static TimerSnapshot readSnapshot(Context context, SharedPreferences prefs) {
+        if (!prefs.getBoolean(KEY_IS_RUNNING, false)) return TimerSnapshot.IDLE;
+        if (prefs.getInt(KEY_BOOT_COUNT, -1) != getBootCount(context)) return TimerSnapshot.IDLE;
+        return new TimerSnapshot(true, prefs.getBoolean(KEY_IS_PAUSED, false), prefs.getBoolean(KEY_IS_MUTED, false),
+                prefs.getLong(KEY_DEADLINE_ELAPSED, 0L), prefs.getLong(KEY_PAUSED_REMAINING, 0L),
+                prefs.getLong(KEY_DURATION_MILLIS, 0L));
+    }
+
+    private void publishSnapshot() {
+        synchronized (TimerService.class) {
+            snapshot = new TimerSnapshot(isTimerRunning, isPaused, isMuted, deadlineElapsed,
+                    isPaused ? remainingMillis : 0L, durationMillis);
+            isSnapshotLoaded = true;
+        }
+    }
+
+    // Publish the new state, persist it and follow the deadline with the alarm
+    private void onStateChanged() {
+        publishSnapshot();
+        saveStateToPrefs();
+        updateDeadlineAlarm();
+        syncTimerState();
+    }
+
+    // Armed while the timer counts down, cancelled when paused or stopped
+    private void updateDeadlineAlarm() {
+        PendingIntent pending = servicePendingIntent(REQUEST_DEADLINE,
+                new Intent(this, TimerService.class).setAction(ACTION_DEADLINE));
+        if (!isTimerRunning || isPaused) {
+            alarmManager.cancel(pending);
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms())
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, deadlineElapsed, pending);
+        else
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, deadlineElapsed, pending);
+    }
 
     // Save Timer State to SharedPreference
     // Using when restore timer state
     private void saveStateToPrefs() {
+        Trace.beginSection("TimerService.persist");
         SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
 
@@ -97,8 +227,78 @@ public class TimerService extends Service {
         editor.putBoolean(KEY_IS_RUNNING, isTimerRunning);
         editor.putBoolean(KEY_IS_PAUSED, isPaused);
         editor.putBoolean(KEY_IS_MUTED, isMuted);
+        editor.putLong(KEY_DEADLINE_ELAPSED, deadlineElapsed);
+        editor.putLong(KEY_PAUSED_REMAINING, isPaused ? remainingMillis : 0L);
+        editor.putLong(KEY_DURATION_MILLIS, durationMillis);
+        editor.putLong(KEY_START_WALL_TIME, startWallMillis);
+        editor.putLong(KEY_DEADLINE_WALL_TIME, isTimerRunning && !isPaused
+                ? System.currentTimeMillis() + deadlineElapsed - SystemClock.elapsedRealtime() : 0L);
+        editor.putInt(KEY_BOOT_COUNT, getBootCount(this));
+        editor.putLong(KEY_SUBJECT_ID, subjectId);
 
         editor.apply();
+        stats.onPrefsWrite();
+        Trace.endSection();
+    }
+
+    // Remaining time of the persisted session, 0 if none or from another boot
+    // Computed from the deadline in O(1), used by the service and the UI
+    static long readRemainingMillis(Context context, SharedPreferences prefs) {
+        if (!prefs.getBoolean(KEY_IS_RUNNING, false)) return 0L;
+        if (prefs.getInt(KEY_BOOT_COUNT, -1) != getBootCount(context)) return 0L;
+        if (prefs.getBoolean(KEY_IS_PAUSED, false)) return prefs.getLong(KEY_PAUSED_REMAINING, 0L);
+        return Math.max(0L, prefs.getLong(KEY_DEADLINE_ELAPSED, 0L) - SystemClock.elapsedRealtime());
+    }
+
+    // Boot identifier, elapsedRealtime values are only comparable within one boot
+    static int getBootCount(Context context) {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    // Restore a session after the process was killed
+    // No command is replayed and no "Session Start" notification is sent again
+    private void restoreTimerState() {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(KEY_IS_RUNNING, false)) return;
+
+        if (prefs.getInt(KEY_BOOT_COUNT, -1) != getBootCount(this)) {
+            Log.w(TAG, "Persisted session is from another boot, dropping it");
+            onStateChanged();
+            return;
+        }
+
+        isTimerRunning = true;
+        isPaused = prefs.getBoolean(KEY_IS_PAUSED, false);
+        isMuted = prefs.getBoolean(KEY_IS_MUTED, false);
+        startTime = prefs.getString(KEY_START_TIME, null);
+        startWallMillis = prefs.getLong(KEY_START_WALL_TIME, 0L);
+        subjectId = prefs.getLong(KEY_SUBJECT_ID, Subject.NONE);
+        durationMillis = prefs.getLong(KEY_DURATION_MILLIS, 0L);
+        deadlineElapsed = prefs.getLong(KEY_DEADLINE_ELAPSED, 0L);
+        remainingMillis = readRemainingMillis(this, prefs);
+        Log.d(TAG, "Restored session, remaining millis: " + remainingMillis);
+
+        if (remainingMillis <= 0) {
+            stopTimer();
+            onStateChanged();
+            return;
+        }
+        publishSnapshot();
+        // The service follows the deadline from here, the one armed at boot is not needed
+        BootReceiver.cancelDeadline(this);
+        updateDeadlineAlarm();
+        SessionChime.get(this).preload();
+
+        try {
+            startForeground(NOTIFICATION_ID, createNotification(formatMillis(remainingMillis)));
+        } catch (IllegalStateException e) {
+            // Background start not allowed (API 31+), keep ticking with a plain notification
+            Log.w(TAG, "Cannot restore foreground state", e);
+            NotificationManagerCompat.from(this).notify(NOTIFICATION_ID, createNotification(formatMillis(remainingMillis)));
+        }
+        stats.onNotification();
+        if (!isPaused) startPeriodicUpdates();
+        sendTimerUpdateBroadcast(remainingMillis);
     }
 
     @Override
@@ -106,33 +306,74 @@ public class TimerService extends Service {
         super.onCreate();
 
         Log.d(TAG, "onCreate");
-        handler = new Handler(Looper.getMainLooper());
-        createNotificationChannel();
-        initTimerState();
+        // Default priority: the final tick plays the chime and must not queue behind background work
+        workerThread = new HandlerThread(TAG);
+        workerThread.start();
+        handler = new Handler(workerThread.getLooper());
+        alarmManager = getSystemService(AlarmManager.class);
+        deadlineWakeLock = getSystemService(PowerManager.class)
+                .newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "Timer:deadline");
+        deadlineWakeLock.setReferenceCounted(false);
+        handler.post(() -> {
+            createNotificationChannel();
+            SubjectCatalog.get(this).preloadAsync();
+            // A restored session is not a new command for the other devices
+            syncedSnapshot = getSnapshot(this);
+            syncClient = SyncClient.get(this);
+            syncClient.setTimerListener((state, remaining) -> handler.post(() -> applyRemoteTimer(state, remaining)));
+            initTimerState();
+            restoreTimerState();
+            // Pick up commands sent while this service was not running
+            syncClient.syncAsync();
+        });
+    }
+
+    // Worker looper, exposed for tests to wait on
+    Looper getWorkerLooper() {
+        return workerThread.getLooper();
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        // The alarm only holds the CPU until delivery; released by the timeout
+        if (intent != null && ACTION_DEADLINE.equals(intent.getAction()))
+            deadlineWakeLock.acquire(DEADLINE_WAKE_MILLIS);
+        handler.post(() -> handleCommand(intent));
+        // Sticky instead of redelivery: a restart must not replay ACTION_START
+        return START_STICKY;
+    }
+
+    // Handle a start command on the worker thread
+    private void handleCommand(Intent intent) {
         if (intent == null || intent.getAction() == null) {
+            // Sticky restart after the process was killed, state was restored in onCreate
+            if (isTimerRunning) return;
+
             Log.w(TAG, "onStartCommand: Intent or Action is null");
             stopSelf();
-            return START_NOT_STICKY;
+            return;
         }
 
         String action = intent.getAction();
         Log.d(TAG, "Action Received : " + action);
-
+        stats.onCommand(action);
 
         switch (action) {
             case ACTION_START:
                 Bundle bundle = intent.getExtras();
+                if (bundle.containsKey(BUNDLE_SCHEDULED_ID) && !takeScheduled(bundle)) {
+                    if (!isTimerRunning) stopWithoutSession();
+                    break;
+                }
                 long duration = bundle.getLong(BUNDLE_TIMER_TIME);
                 if (duration > 0 && !isTimerRunning) {
                     startTime = intent.getStringExtra(BUNDLE_START_TIME);
+                    subjectId = resolveSubject(bundle);
 
                     showTempNotification(this, "Session Start");
                     startTimer(duration);
-                    saveStateToPrefs();
+                    onStateChanged();
+                    sendStateChangedBroadcast();
                 } else if (isTimerRunning) {
                     Log.w(TAG, "Timer is already running");
                     // showTempNotification(this, "Timer is already running");
@@ -145,33 +386,39 @@ public class TimerService extends Service {
                 long adjustDuration = intent.getLongExtra(EXTRA_ADJUSTMENT_TIME, 0L);
                 if (isTimerRunning && adjustDuration != 0) {
                     adjustTimerTime(adjustDuration);
-                    saveStateToPrefs();
+                    onStateChanged();
                 } else
                     Log.w(TAG, "Cannot Adjust Time");
                 break;
             case ACTION_PAUSE:
                 pauseTimer();
-                saveStateToPrefs();
+                onStateChanged();
                 break;
             case ACTION_RESUME:
                 resumeTimer();
-                saveStateToPrefs();
+                onStateChanged();
                 break;
             case ACTION_STOP:
                 stopTimer();
-                saveStateToPrefs();
+                onStateChanged();
                 break;
             case ACTION_MUTE:
                 isMuted = true;
-                saveStateToPrefs();
+                onStateChanged();
                 break;
             case ACTION_UNMUTE:
                 isMuted = false;
-                saveStateToPrefs();
+                onStateChanged();
+                break;
+            case ACTION_DEADLINE:
+                // Run the held back tick now, it finishes the session or re-posts itself
+                if (isTimerRunning && !isPaused && timerRunnable != null) {
+                    handler.removeCallbacks(timerRunnable);
+                    timerRunnable.run();
+                } else if (!isTimerRunning) stopSelf();
                 break;
         }
 
-        return START_REDELIVER_INTENT;
     }
 
     // Initialize Timer State
@@ -182,8 +429,52 @@ public class TimerService extends Service {
         isTimerRunning = false;
 
         remainingMillis = 0;
-        startTimeMillis = 0;
+        deadlineElapsed = 0;
+        startWallMillis = 0;
         durationMillis = 0;
+        subjectId = Subject.NONE;
+    }
+
+    // Remove the fired entry from the schedule, which re-arms for the next one
+    // False if it was cancelled meanwhile, fired too late or a session is already running
+    private boolean takeScheduled(Bundle bundle) {
+        ScheduledSession session = SessionSchedule.get(this).take(bundle.getLong(BUNDLE_SCHEDULED_ID));
+        if (session == null) {
+            Log.w(TAG, "Scheduled session was cancelled or missed");
+            return false;
+        }
+        if (isTimerRunning) {
+            Log.w(TAG, "Skipping scheduled session " + session.id + ", timer is already running");
+            return false;
+        }
+        return true;
+    }
+
+    // The schedule alarm starts this service with startForegroundService, which must be
+    // answered with startForeground even when nothing runs, or the app is crashed
+    private void stopWithoutSession() {
+        Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.outline_hourglass_top_black_24)
+                .setContentTitle("Timer Session")
+                .setContentText("Scheduled session skipped")
+                .build();
+        try {
+            startForeground(NOTIFICATION_ID, notification);
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Cannot enter foreground state", e);
+        }
+        // Stopping the service also removes its notification
+        stopSelf();
+    }
+
+    // Subject of a start command, by id or by name (created if new)
+    private long resolveSubject(Bundle bundle) {
+        SubjectCatalog catalog = SubjectCatalog.get(this);
+        Subject subject = catalog.find(bundle.getLong(BUNDLE_SUBJECT_ID, Subject.NONE));
+        String name = bundle.getString(BUNDLE_SUBJECT_NAME);
+        if (subject == null && name != null && !name.trim().isEmpty())
+            subject = catalog.getOrCreate(name);
+        return subject == null ? Subject.NONE : subject.id;
     }
 
     // Start Timer
@@ -196,9 +487,15 @@ public class TimerService extends Service {
         isPaused = false;
 
         durationMillis = duration * 1000L;
-        startTimeMillis = SystemClock.elapsedRealtime();
+        remainingMillis = durationMillis;
+        deadlineElapsed = SystemClock.elapsedRealtime() + durationMillis;
+        startWallMillis = System.currentTimeMillis();
+        // Decoded now so the chime plays without delay at the deadline
+        SessionChime.get(this).preload();
+        BootReceiver.setEnabled(this, true);
 
         startForeground(NOTIFICATION_ID, createNotification(formatMillis(durationMillis)));
+        stats.onNotification();
         startPeriodicUpdates();
         sendTimerUpdateBroadcast(durationMillis);
     }
@@ -208,8 +505,16 @@ public class TimerService extends Service {
         Log.d(TAG, "Adjusting timer time by " + adjustDuration + " seconds");
         long adjustMillis = adjustDuration * 1000;
         durationMillis += adjustMillis;
-        remainingMillis += adjustMillis;
+        if (isPaused) remainingMillis += adjustMillis;
+        else {
+            deadlineElapsed += adjustMillis;
+            remainingMillis = deadlineElapsed - SystemClock.elapsedRealtime();
+        }
+        // No tick refreshes a paused notification
+        if (isPaused) updateNotification(formatMillis(remainingMillis));
         sendTimerUpdateBroadcast(remainingMillis);
+        // The tile only listens for state changes, a new remaining time is one too
+        sendStateChangedBroadcast();
     }
 
     // Pause Timer
@@ -221,11 +526,13 @@ public class TimerService extends Service {
             if (handler != null && timerRunnable != null)
                 handler.removeCallbacks(timerRunnable);
 
-            remainingMillis = durationMillis - (SystemClock.elapsedRealtime() - startTimeMillis);
+            remainingMillis = deadlineElapsed - SystemClock.elapsedRealtime();
             if (remainingMillis < 0) remainingMillis = 0;
+            deadlineElapsed = 0;
             updateNotification(formatMillis(remainingMillis));
             showTempNotification(this, "The session has been paused");
             sendTimerUpdateBroadcast(remainingMillis);
+            sendStateChangedBroadcast();
             Log.d(TAG, "Paused. Remaining millis: " + remainingMillis);
         } else {
             Log.d(TAG, "Timer not running or already paused");
@@ -243,27 +550,59 @@ public class TimerService extends Service {
 
             Log.d(TAG, "Resuming timer with " + remainingMillis + " ms remaining");
             isPaused = false;
+            deadlineElapsed = SystemClock.elapsedRealtime() + remainingMillis;
             startPeriodicUpdates();
             updateNotification(formatMillis(remainingMillis));
             sendTimerUpdateBroadcast(remainingMillis);
+            sendStateChangedBroadcast();
         } else
             Log.w(TAG, "Timer not running or not paused");
     }
 
     // Stop Timer
     private void stopTimer() {
+        stopTimer(false);
+    }
+
+    // Timer reached zero: chime at the deadline, then end the session quietly
+    private void finishTimer() {
+        boolean isChimed = !isMuted && SessionChime.get(this).play();
+        stopTimer(isChimed);
+    }
+
+    private void stopTimer(boolean isChimed) {
         Log.d(TAG, "Stopping timer and service");
-        if (isTimerRunning) {
-            showTempNotification(this, "Session has ended");
-            Intent intent = new Intent(BROADCAST_ACTION_TIMER_STOP);
-            LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+        SessionChime.get(this).releaseLater();
+        boolean wasRunning = isTimerRunning;
+        if (wasRunning) {
+            recordSession();
+            showTempNotification(this, "Session has ended", isChimed);
         }
 
         initTimerState();
+        if (wasRunning) {
+            // Receivers reread the snapshot, publish the stopped state first
+            publishSnapshot();
+            Intent intent = new Intent(BROADCAST_ACTION_TIMER_STOP);
+            LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+        }
+        // Still needed to re-arm the schedule after a reboot
+        BootReceiver.setEnabled(this, !SessionSchedule.get(this).isEmpty());
         stopForeground(true);
         stopSelf();
     }
 
+    // Append the running session to the history
+    private void recordSession() {
+        long remaining = isPaused ? remainingMillis : deadlineElapsed - SystemClock.elapsedRealtime();
+        if (remaining < 0) remaining = 0;
+        long focusedMillis = durationMillis - remaining;
+
+        SessionRecord record = new SessionRecord(SessionRecord.newId(startWallMillis), startWallMillis, focusedMillis,
+                remaining == 0, subjectId);
+        SessionHistory.get(this).appendAsync(record);
+    }
+
     // Start Periodic Updates
     // Using Runnable Object to implements timer
     private void startPeriodicUpdates() {
@@ -275,21 +614,84 @@ public class TimerService extends Service {
             public void run() {
                 if (!isTimerRunning || isPaused) return;
 
-                long currentTimeMillis = SystemClock.elapsedRealtime();
-                long elapsedTimeMillis = currentTimeMillis - startTimeMillis;
-                remainingMillis = durationMillis - elapsedTimeMillis;
+                Trace.beginSection("TimerService.tick");
+                long tickStart = SystemClock.elapsedRealtimeNanos();
+                try {
+                    stats.onTick(SystemClock.uptimeMillis() - nextTickUptime);
+
+                    remainingMillis = deadlineElapsed - SystemClock.elapsedRealtime();
+
+                    if (remainingMillis <= 0) {
+                        Log.d(TAG, "Handler check: Time is up or passed");
+                        finishTimer();
+                        onStateChanged();
+                    } else {
+                        updateNotification(formatMillis(remainingMillis));
+                        sendTimerUpdateBroadcast(remainingMillis);
+                        // Last tick lands on the deadline itself
+                        long delay = Math.min(1000, remainingMillis);
+                        nextTickUptime = SystemClock.uptimeMillis() + delay;
+                        handler.postDelayed(this, delay);
+                    }
+                } finally {
+                    stats.onTickWork(SystemClock.elapsedRealtimeNanos() - tickStart,
+                            Looper.myLooper() == Looper.getMainLooper());
+                    Trace.endSection();
+                }
+            }
+        };
+        nextTickUptime = SystemClock.uptimeMillis();
+        handler.post(timerRunnable);
+    }
 
-                if (remainingMillis <= 0) {
-                    Log.d(TAG, "Handler check: Time is up or passed");
-                    stopTimer();
-                } else {
+    // Sync Timer State
+    // Send a changed timer to the other devices; mute stays local
+    private void syncTimerState() {
+        TimerSnapshot state = snapshot;
+        if (state.isSameTimer(syncedSnapshot)) return;
+        syncedSnapshot = state;
+        long deadlineWallMillis = state.isRunning && !state.isPaused
+                ? System.currentTimeMillis() + state.deadlineElapsed - SystemClock.elapsedRealtime() : 0L;
+        syncClient.setLocalTimer(state.isRunning, state.isPaused, deadlineWallMillis,
+                state.pausedRemainingMillis, state.durationMillis, subjectId);
+        syncClient.syncAsync();
+    }
+
+    // Apply Remote Timer
+    // Another device paused, resumed, adjusted or stopped the session
+    // The result is marked as synced, so it is not sent back as a new command. Syncs only
+    // run while this service does, so a session started elsewhere is not started here.
+    private void applyRemoteTimer(SyncProtocol.TimerState state, long remaining) {
+        if (!isTimerRunning) {
+            if (state.isRunning) Log.w(TAG, "Ignoring a session started on another device");
+            return;
+        }
+
+        if (!state.isRunning) stopTimer();
+        else {
+            durationMillis = state.durationMillis;
+            if (state.isPaused && !isPaused) {
+                deadlineElapsed = SystemClock.elapsedRealtime() + remaining;
+                pauseTimer();
+            } else if (!state.isPaused && isPaused) {
+                remainingMillis = remaining;
+                resumeTimer();
+            } else {
+                // Same pause state, only the time moved
+                if (isPaused) {
+                    remainingMillis = remaining;
                     updateNotification(formatMillis(remainingMillis));
                     sendTimerUpdateBroadcast(remainingMillis);
-                    handler.postDelayed(this, 1000);
+                } else {
+                    deadlineElapsed = SystemClock.elapsedRealtime() + remaining;
+                    startPeriodicUpdates();
                 }
+                sendStateChangedBroadcast();
             }
-        };
-        handler.post(timerRunnable);
+        }
+        publishSnapshot();
+        syncedSnapshot = snapshot;
+        onStateChanged();
     }
 
     // Send Remaining time to Broadcast Receiver
@@ -299,11 +701,26 @@ public class TimerService extends Service {
         intent.putExtra(BROADCAST_EXTRA_REMAINING_TIME, remainingMillis);
 
         LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
-        Log.d(TAG, "Send Broadcast");
+        stats.onBroadcast();
+        if (DEBUG_TICK) Log.v(TAG, "Send Broadcast");
+    }
+
+    // Pause/resume/adjust may come from the notification, tell an open activity and the tile
+    // Receivers such as the tile reread getSnapshot(), so it is published first
+    private void sendStateChangedBroadcast() {
+        publishSnapshot();
+        Intent intent = new Intent(BROADCAST_ACTION_TIMER_STATE_CHANGED);
+        intent.putExtra(BROADCAST_EXTRA_IS_PAUSED, isPaused);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+        stats.onBroadcast();
     }
 
     // Create Notification Channel
     private void createNotificationChannel() {
+        synchronized (TimerService.class) {
+            if (areChannelsCreated) return;
+            areChannelsCreated = true;
+        }
         String name = "Timer Channel";
         String description = "Timer Service Channel";
         int importance = NotificationManager.IMPORTANCE_LOW;
@@ -357,32 +774,57 @@ public class TimerService extends Service {
     }
 
     // Create Notification for foreground service
+    // Actions go straight to this service, the activity is only opened by tapping the notification
     private Notification createNotification(String timeText) {
-        Intent intent = new Intent(this, MainActivity.class);
-        int intentFlags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, intentFlags) ;
+        if (contentIntent == null) createNotificationActions();
         NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
                 .setContentTitle("Timer Session")
                 .setContentText(timeText)
                 .setSmallIcon(R.drawable.outline_hourglass_top_black_24)
-                .setContentIntent(pendingIntent)
+                .setContentIntent(contentIntent)
                 .setOngoing(true)
                 .setOnlyAlertOnce(true)
-                .setContentIntent(pendingIntent);
+                .addAction(isPaused ? resumeAction : pauseAction)
+                .addAction(addMinuteAction)
+                .addAction(stopAction);
 
         return builder.build();
     }
 
+    // Build the PendingIntents once, they are reused by every notification update
+    private void createNotificationActions() {
+        int intentFlags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+        contentIntent = PendingIntent.getActivity(this, 0, new Intent(this, MainActivity.class), intentFlags);
+
+        pauseAction = new NotificationCompat.Action(android.R.drawable.ic_media_pause, "Pause",
+                servicePendingIntent(REQUEST_PAUSE, new Intent(this, TimerService.class).setAction(ACTION_PAUSE)));
+        resumeAction = new NotificationCompat.Action(android.R.drawable.ic_media_play, "Resume",
+                servicePendingIntent(REQUEST_RESUME, new Intent(this, TimerService.class).setAction(ACTION_RESUME)));
+        addMinuteAction = new NotificationCompat.Action(android.R.drawable.ic_input_add, "+1 min",
+                servicePendingIntent(REQUEST_ADD_MINUTE, new Intent(this, TimerService.class)
+                        .setAction(ACTION_ADJUST_TIME).putExtra(EXTRA_ADJUSTMENT_TIME, 60L)));
+        stopAction = new NotificationCompat.Action(android.R.drawable.ic_menu_close_clear_cancel, "Stop",
+                servicePendingIntent(REQUEST_STOP, new Intent(this, TimerService.class).setAction(ACTION_STOP)));
+    }
+
+    private PendingIntent servicePendingIntent(int requestCode, Intent intent) {
+        return PendingIntent.getService(this, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
     // Show Temporary Notification
     private void showTempNotification(Context context, String message) {
-        createTempNotificationChannel(context);
+        showTempNotification(context, message, false);
+    }
 
+    // Silent when the alert sound was already played by the chime
+    private void showTempNotification(Context context, String message, boolean isSilent) {
         Intent intent = new Intent(context, MainActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         PendingIntent pendingIntent = PendingIntent.getActivity(context, 3, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
 
         String channelId = TEMP_CHANNEL_ID;
-        if (isMuted) channelId = TEMP_MUTE_CHANNEL_ID;
+        if (isMuted || isSilent) channelId = TEMP_MUTE_CHANNEL_ID;
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
                 .setSmallIcon(R.drawable.outline_hourglass_top_black_24)
                 .setContentTitle("Timer Session")
@@ -394,12 +836,16 @@ public class TimerService extends Service {
         builder.setTimeoutAfter(2500);
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
         notificationManager.notify(TEMP_NOTIFICATION_ID, builder.build());
+        stats.onNotification();
     }
 
     // Update Notification
     private void updateNotification(String timeText) {
+        Trace.beginSection("TimerService.notify");
         Notification notification = createNotification(timeText);
         NotificationManagerCompat.from(this).notify(1, notification);
+        stats.onNotification();
+        Trace.endSection();
     }
 
     // Format Remaining Time
@@ -418,10 +864,28 @@ public class TimerService extends Service {
 
     @Override
     public void onDestroy() {
-        saveStateToPrefs();
         super.onDestroy();
         if (handler != null && timerRunnable != null)
             handler.removeCallbacks(timerRunnable);
+        // Save on the worker, then let it finish pending work and exit
+        handler.post(() -> {
+            onStateChanged();
+            syncClient.setTimerListener(null);
+        });
+        workerThread.quitSafely();
+    }
+
+    // Dump Runtime Counters
+    // adb shell dumpsys activity service orion.app.timer/.TimerService
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        TimerSnapshot state = snapshot;
+        writer.println("running=" + state.isRunning + " paused=" + state.isPaused + " muted=" + state.isMuted
+                + " remaining=" + formatMillis(state.remainingMillis(SystemClock.elapsedRealtime())));
+        stats.dump(writer);
+        writer.println("  cache bytes:");
+        for (Map.Entry<String, Long> entry : MemoryTrim.bytesHeld(this).entrySet())
+            writer.println("    " + entry.getKey() + ": " + entry.getValue());
     }
 
     @Nullable
@@ -0,0 +1,41 @@
+package orion.app.timer;
+
+// Immutable copy of the TimerService state, safe to read from any thread
+// Running timers are described by their deadline, so a snapshot stays valid
+// between state changes and is not republished every tick.
+final class TimerSnapshot {
+    static final TimerSnapshot IDLE = new TimerSnapshot(false, false, false, 0L, 0L, 0L);
+
+    final boolean isRunning;
+    final boolean isPaused;
+    final boolean isMuted;
+    // elapsedRealtime at which a running timer reaches zero
+    final long deadlineElapsed;
+    // Remaining time of a paused timer
+    final long pausedRemainingMillis;
+    final long durationMillis;
+
+    TimerSnapshot(boolean isRunning, boolean isPaused, boolean isMuted,
+                  long deadlineElapsed, long pausedRemainingMillis, long durationMillis) {
+        this.isRunning = isRunning;
+        this.isPaused = isPaused;
+        this.isMuted = isMuted;
+        this.deadlineElapsed = deadlineElapsed;
+        this.pausedRemainingMillis = pausedRemainingMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    // Same timer, mute aside
+    boolean isSameTimer(TimerSnapshot other) {
+        return isRunning == other.isRunning && isPaused == other.isPaused
+                && deadlineElapsed == other.deadlineElapsed
+                && pausedRemainingMillis == other.pausedRemainingMillis
+                && durationMillis == other.durationMillis;
+    }
+
+    long remainingMillis(long nowElapsed) {
+        if (!isRunning) return 0L;
+        if (isPaused) return pausedRemainingMillis;
+        return Math.max(0L, deadlineElapsed - nowElapsed);
+    }
+}
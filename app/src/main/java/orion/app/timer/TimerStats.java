@@ -0,0 +1,92 @@
+package orion.app.timer;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Runtime counters for TimerService
+// Printed by "adb shell dumpsys activity service orion.app.timer/.TimerService"
+final class TimerStats {
+    // Number of tick lateness samples kept (ring buffer)
+    private static final int LATENESS_SAMPLES = 256;
+
+    private final long createdAt = SystemClock.elapsedRealtime();
+
+    private long ticks;
+    private long notifications;
+    private long broadcasts;
+    private long prefsWrites;
+    private long tickWorkNanos;
+    private long mainThreadTicks;
+    private final Map<String, Long> commands = new LinkedHashMap<>();
+
+    private final long[] lateness = new long[LATENESS_SAMPLES];
+    private int latenessCount;
+    private int latenessIndex;
+    private long maxLateness;
+
+    synchronized void onTick(long latenessMillis) {
+        ticks++;
+        if (latenessMillis < 0) latenessMillis = 0;
+        lateness[latenessIndex] = latenessMillis;
+        latenessIndex = (latenessIndex + 1) % LATENESS_SAMPLES;
+        if (latenessCount < LATENESS_SAMPLES) latenessCount++;
+        if (latenessMillis > maxLateness) maxLateness = latenessMillis;
+    }
+
+    // Time spent inside one tick, and whether it ran on the main thread
+    synchronized void onTickWork(long nanos, boolean mainThread) {
+        tickWorkNanos += nanos;
+        if (mainThread) mainThreadTicks++;
+    }
+
+    synchronized void onNotification() {
+        notifications++;
+    }
+
+    synchronized void onBroadcast() {
+        broadcasts++;
+    }
+
+    synchronized void onPrefsWrite() {
+        prefsWrites++;
+    }
+
+    synchronized void onCommand(String action) {
+        Long count = commands.get(action);
+        commands.put(action, count == null ? 1L : count + 1L);
+    }
+
+    // Percentile of recorded lateness samples (p in [0, 100])
+    private long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        if (index < 0) index = 0;
+        return sorted[index];
+    }
+
+    synchronized void dump(PrintWriter writer) {
+        long[] sorted = Arrays.copyOf(lateness, latenessCount);
+        Arrays.sort(sorted);
+
+        writer.println("TimerService stats:");
+        writer.println("  uptime: " + (SystemClock.elapsedRealtime() - createdAt) + " ms");
+        writer.println("  ticks fired: " + ticks);
+        writer.println("  ticks on main thread: " + mainThreadTicks);
+        writer.println(String.format(Locale.US, "  tick work: avg=%d us",
+                ticks == 0 ? 0 : tickWorkNanos / ticks / 1000));
+        writer.println("  notifications posted: " + notifications);
+        writer.println("  broadcasts sent: " + broadcasts);
+        writer.println("  prefs writes: " + prefsWrites);
+        writer.println("  commands received:");
+        for (Map.Entry<String, Long> entry : commands.entrySet())
+            writer.println("    " + entry.getKey() + ": " + entry.getValue());
+        writer.println(String.format(Locale.US,
+                "  tick lateness (last %d): p50=%d ms p90=%d ms p99=%d ms max=%d ms",
+                sorted.length, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), maxLateness));
+    }
+}
@@ -0,0 +1,107 @@
+package orion.app.timer;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.service.quicksettings.Tile;
+import android.service.quicksettings.TileService;
+
+import androidx.core.content.ContextCompat;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import java.time.LocalTime;
+
+// Quick Settings tile: remaining minutes, tap to start, pause or resume
+// State comes from TimerService's in-memory snapshot. The tile is refreshed on
+// state changes and on minute boundaries while visible, never per second.
+public class TimerTileService extends TileService {
+    private static final long DEFAULT_SESSION_SECONDS = 25 * 60L;
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable minuteUpdate = this::updateTile;
+    private boolean isListening = false;
+
+    // Start, pause, resume and stop, not the per-second updates
+    private final BroadcastReceiver stateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateTile();
+        }
+    };
+
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        isListening = true;
+        LocalBroadcastManager broadcasts = LocalBroadcastManager.getInstance(this);
+        broadcasts.registerReceiver(stateReceiver, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_STATE_CHANGED));
+        broadcasts.registerReceiver(stateReceiver, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_STOP));
+        updateTile();
+    }
+
+    @Override
+    public void onStopListening() {
+        super.onStopListening();
+        isListening = false;
+        handler.removeCallbacks(minuteUpdate);
+        LocalBroadcastManager.getInstance(this).unregisterReceiver(stateReceiver);
+    }
+
+    @Override
+    public void onClick() {
+        super.onClick();
+        TimerSnapshot snapshot = TimerService.getSnapshot(this);
+
+        Intent intent = new Intent(this, TimerService.class);
+        if (!snapshot.isRunning) {
+            intent.setAction(TimerService.ACTION_START);
+            intent.putExtra(TimerService.BUNDLE_TIMER_TIME, DEFAULT_SESSION_SECONDS);
+            intent.putExtra(TimerService.BUNDLE_START_TIME, LocalTime.now().toString());
+            ContextCompat.startForegroundService(this, intent);
+        } else {
+            intent.setAction(snapshot.isPaused ? TimerService.ACTION_RESUME : TimerService.ACTION_PAUSE);
+            startService(intent);
+        }
+    }
+
+    // Redraw the tile and schedule the next minute boundary
+    private void updateTile() {
+        handler.removeCallbacks(minuteUpdate);
+        Tile tile = getQsTile();
+        if (tile == null || !isListening) return;
+
+        TimerSnapshot snapshot = TimerService.getSnapshot(this);
+        long remainingMillis = snapshot.remainingMillis(SystemClock.elapsedRealtime());
+        // Rounded up, so "1 min" is shown until the session ends
+        long minutes = (remainingMillis + MINUTE_MILLIS - 1) / MINUTE_MILLIS;
+
+        String label;
+        if (!snapshot.isRunning) {
+            tile.setState(Tile.STATE_INACTIVE);
+            label = "Start timer";
+        } else {
+            tile.setState(snapshot.isPaused ? Tile.STATE_INACTIVE : Tile.STATE_ACTIVE);
+            label = minutes + " min" + (snapshot.isPaused ? " (paused)" : "");
+        }
+
+        tile.setIcon(Icon.createWithResource(this, R.drawable.outline_timer_black_24));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            tile.setLabel(getString(R.string.app_name));
+            tile.setSubtitle(label);
+        } else
+            tile.setLabel(label);
+        tile.updateTile();
+
+        if (snapshot.isRunning && !snapshot.isPaused && remainingMillis > 0) {
+            long delay = remainingMillis % MINUTE_MILLIS;
+            handler.postDelayed(minuteUpdate, delay == 0 ? MINUTE_MILLIS : delay);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package orion.app.timer;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Session persisted before a reboot, reconciled with the wall clock after it and ended by the deadline alarm.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class BootReceiverTest {
+    private static final long MINUTE = 60_000L;
+
+    private Context context;
+    private SharedPreferences prefs;
+    private SessionHistory history;
+
+    @Before
+    public void setUp() {
+        ProcessState.reset();
+        context = ApplicationProvider.getApplicationContext();
+        prefs = context.getSharedPreferences(TimerService.PREFS_NAME, Context.MODE_PRIVATE);
+        File file = new File(context.getFilesDir(), SessionHistory.FILE_NAME);
+        file.delete();
+        history = new SessionHistory(file);
+        Settings.Global.putInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, 7);
+    }
+
+    @After
+    public void tearDown() {
+        ProcessState.reset();
+    }
+
+    // Session saved during boot 6, deadline relative to the current wall clock
+    private void persistSession(long deadlineFromNowMillis, boolean paused) {
+        long now = System.currentTimeMillis();
+        prefs.edit()
+                .putBoolean(TimerService.KEY_IS_RUNNING, true)
+                .putBoolean(TimerService.KEY_IS_PAUSED, paused)
+                .putInt(TimerService.KEY_BOOT_COUNT, 6)
+                .putLong(TimerService.KEY_DURATION_MILLIS, 25 * MINUTE)
+                .putLong(TimerService.KEY_START_WALL_TIME, now - 25 * MINUTE + deadlineFromNowMillis)
+                .putLong(TimerService.KEY_DEADLINE_ELAPSED, 123_456_789L)
+                .putLong(TimerService.KEY_PAUSED_REMAINING, paused ? 10 * MINUTE : 0L)
+                .putLong(TimerService.KEY_DEADLINE_WALL_TIME, paused ? 0L : now + deadlineFromNowMillis)
+                .commit();
+    }
+
+    @Test
+    public void deadlineAhead_rebasesOntoThisBoot() {
+        persistSession(15 * MINUTE, false);
+
+        assertEquals(BootReceiver.RESULT_RESUMED, BootReceiver.reconcile(context, history));
+        assertEquals(7, prefs.getInt(TimerService.KEY_BOOT_COUNT, -1));
+        long remaining = TimerService.readRemainingMillis(context, prefs);
+        assertTrue("remaining " + remaining, Math.abs(remaining - 15 * MINUTE) < 1_000L);
+    }
+
+    @Test
+    public void deadlinePassed_recordsCompletedSession() throws Exception {
+        persistSession(-5 * MINUTE, false);
+
+        assertEquals(BootReceiver.RESULT_FINISHED, BootReceiver.reconcile(context, history));
+        assertFalse(prefs.getBoolean(TimerService.KEY_IS_RUNNING, true));
+
+        long[] recorded = new long[2];
+        history.forEach(record -> {
+            recorded[0]++;
+            recorded[1] = record.completed ? record.durationMillis : -1;
+            return true;
+        });
+        assertEquals(1, recorded[0]);
+        assertEquals(25 * MINUTE, recorded[1]);
+    }
+
+    @Test
+    public void pausedSession_keepsPausedRemaining() {
+        persistSession(0, true);
+
+        assertEquals(BootReceiver.RESULT_RESUMED, BootReceiver.reconcile(context, history));
+        assertEquals(10 * MINUTE, TimerService.readRemainingMillis(context, prefs));
+    }
+
+    @Test
+    public void idle_doesNothing() {
+        prefs.edit().clear().commit();
+        assertEquals(BootReceiver.RESULT_NONE, BootReceiver.reconcile(context, history));
+    }
+
+    @Test
+    public void boot_armsDeadlineInsteadOfStartingService() throws Exception {
+        persistSession(15 * MINUTE, false);
+        long deadline = prefs.getLong(TimerService.KEY_DEADLINE_WALL_TIME, 0L);
+        NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+
+        BootReceiver.handle(context, Intent.ACTION_BOOT_COMPLETED, history);
+
+        // A mediaPlayback service cannot be started from BOOT_COMPLETED on Android 15+
+        assertNull(shadowOf((Application) context).getNextStartedService());
+        ShadowAlarmManager alarms = shadowOf(context.getSystemService(AlarmManager.class));
+        assertEquals(deadline, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+        assertNotNull(shadowOf(notificationManager).getNotification(TimerService.NOTIFICATION_ID));
+
+        // Not tapped before the deadline: the alarm ends the session
+        prefs.edit().putLong(TimerService.KEY_DEADLINE_WALL_TIME, System.currentTimeMillis() - 1).commit();
+        BootReceiver.handle(context, BootReceiver.ACTION_SESSION_DEADLINE, history);
+        assertFalse(prefs.getBoolean(TimerService.KEY_IS_RUNNING, true));
+        assertNull(shadowOf(notificationManager).getNotification(TimerService.NOTIFICATION_ID));
+        assertEquals(1, historySize());
+
+        // Delivered again, e.g. after the service ended it first: nothing left to finish
+        BootReceiver.handle(context, BootReceiver.ACTION_SESSION_DEADLINE, history);
+        assertEquals(1, historySize());
+    }
+
+    private int historySize() throws Exception {
+        int[] size = new int[1];
+        history.forEach(record -> {
+            size[0]++;
+            return true;
+        });
+        return size[0];
+    }
+}
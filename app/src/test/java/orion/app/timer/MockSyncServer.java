@@ -0,0 +1,54 @@
+package orion.app.timer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process sync server: keeps every device's changes in seq order and the winning timer command.
+ * Speaks the binary protocol, so clients are tested end to end without a network.
+ */
+class MockSyncServer implements SyncProtocol.Transport {
+    // Origin device -> its changes, index = seq - 1
+    private final Map<Long, List<SyncProtocol.Change>> logs = new LinkedHashMap<>();
+    private SyncProtocol.TimerState timer;
+    // Server clock minus device clock, to test deadline reconciliation
+    long skewMillis = 0;
+    int requests = 0;
+
+    @Override
+    public synchronized byte[] exchange(byte[] bytes) throws IOException {
+        requests++;
+        SyncProtocol.Request request = SyncProtocol.decodeRequest(bytes);
+
+        List<SyncProtocol.Change> own = logs.get(request.deviceId);
+        if (own == null) {
+            own = new ArrayList<>();
+            logs.put(request.deviceId, own);
+        }
+        // Retransmits are ignored, gaps are refused and resent from the ack
+        for (SyncProtocol.Change change : request.pushes)
+            if (change.origin == request.deviceId && change.seq == own.size() + 1) own.add(change);
+        if (request.timer != null && request.timer.isNewerThan(timer)) timer = request.timer;
+
+        Map<Long, Long> clock = new HashMap<>();
+        for (int i = 0; i < request.clockOrigins.length; i++) clock.put(request.clockOrigins[i], request.clockSeqs[i]);
+
+        List<SyncProtocol.Change> changes = new ArrayList<>();
+        boolean hasMore = false;
+        for (Map.Entry<Long, List<SyncProtocol.Change>> entry : logs.entrySet()) {
+            if (entry.getKey() == request.deviceId) continue;
+            List<SyncProtocol.Change> log = entry.getValue();
+            Long seen = clock.get(entry.getKey());
+            int from = seen == null ? 0 : (int) Math.min(seen, log.size());
+            int to = Math.min(log.size(), from + request.pullLimit - changes.size());
+            changes.addAll(log.subList(from, to));
+            if (to < log.size()) hasMore = true;
+        }
+        return SyncProtocol.encodeResponse(new SyncProtocol.Response(System.currentTimeMillis() + skewMillis,
+                own.size(), changes, hasMore, timer));
+    }
+}
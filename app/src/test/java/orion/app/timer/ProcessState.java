@@ -0,0 +1,19 @@
+package orion.app.timer;
+
+// Process-wide app state, reset before and after Robolectric tests
+// Robolectric runs every test in the same JVM, so statics would leak from one test
+// (or test class) into the next: the snapshot, created channels and the singletons.
+final class ProcessState {
+    private ProcessState() {
+    }
+
+    static void reset() {
+        TimerService.resetForTest();
+        SessionHistory.resetForTest();
+        SubjectCatalog.resetForTest();
+        SessionSchedule.resetForTest();
+        SessionChime.resetForTest();
+        MemoryTrim.resetForTest();
+        SyncClient.resetForTest();
+    }
+}
@@ -0,0 +1,127 @@
+package orion.app.timer;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Scheduled session heap ordering, persistence and the single head alarm.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SessionScheduleTest {
+    private static final long MINUTE = 60_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        ProcessState.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ProcessState.reset();
+    }
+
+    @Test
+    public void insertAndCancel_keepStartOrder() {
+        Context context = ApplicationProvider.getApplicationContext();
+        SessionSchedule schedule = new SessionSchedule(context, new File(folder.getRoot(), SessionSchedule.FILE_NAME));
+        long base = System.currentTimeMillis() + 60 * MINUTE;
+
+        Random random = new Random(7);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            ids.add(schedule.schedule(base + random.nextInt(1_000) * MINUTE, 25 * 60, Subject.NONE));
+        for (int i = 0; i < ids.size(); i += 3)
+            schedule.cancel(ids.get(i));
+        assertFalse(schedule.cancel(ids.get(0)));
+
+        List<ScheduledSession> all = schedule.getAll();
+        assertEquals(200 - 67, all.size());
+        long previous = Long.MIN_VALUE;
+        for (ScheduledSession session : all) {
+            assertEquals(true, session.startMillis >= previous);
+            previous = session.startMillis;
+        }
+        assertEquals(all.get(0).id, schedule.peek().id);
+
+        // Heap order is stored as is and reloads unchanged
+        SessionSchedule reloaded = new SessionSchedule(context, new File(folder.getRoot(), SessionSchedule.FILE_NAME));
+        assertEquals(all.size(), reloaded.getAll().size());
+        assertEquals(all.get(0).id, reloaded.peek().id);
+    }
+
+    @Test
+    public void alarm_followsHead() {
+        Context context = ApplicationProvider.getApplicationContext();
+        ShadowAlarmManager alarms = shadowOf(context.getSystemService(AlarmManager.class));
+        SessionSchedule schedule = new SessionSchedule(context, new File(folder.getRoot(), SessionSchedule.FILE_NAME));
+        long now = System.currentTimeMillis();
+
+        long later = schedule.schedule(now + 90 * MINUTE, 25 * 60, Subject.NONE);
+        long sooner = schedule.schedule(now + 30 * MINUTE, 50 * 60, Subject.NONE);
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(now + 30 * MINUTE, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+
+        // Fired: the entry leaves the queue and the next one is armed
+        assertEquals(50 * 60, schedule.take(sooner).durationSeconds);
+        assertNull(schedule.take(sooner));
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(now + 90 * MINUTE, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+
+        schedule.cancel(later);
+        assertEquals(0, alarms.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void missedEntries_areDropped() {
+        Context context = ApplicationProvider.getApplicationContext();
+        SessionSchedule schedule = new SessionSchedule(context, new File(folder.getRoot(), SessionSchedule.FILE_NAME));
+        long now = System.currentTimeMillis();
+
+        schedule.schedule(now - SessionSchedule.MISSED_GRACE_MILLIS - MINUTE, 25 * 60, Subject.NONE);
+        long next = schedule.schedule(now + 5 * MINUTE, 25 * 60, Subject.NONE);
+        assertEquals(1, schedule.getAll().size());
+        assertEquals(next, schedule.peek().id);
+    }
+
+    @Test
+    public void lateAlarm_isNotTaken() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        File file = new File(folder.getRoot(), SessionSchedule.FILE_NAME);
+        long start = System.currentTimeMillis() - SessionSchedule.MISSED_GRACE_MILLIS - MINUTE;
+        // Still queued because its alarm fired late, nothing re-armed in between
+        Files.write(file.toPath(), ("7," + start + ",1500,0\n").getBytes(StandardCharsets.UTF_8));
+
+        SessionSchedule schedule = new SessionSchedule(context, file);
+        assertNull(schedule.take(7));
+        assertTrue(schedule.isEmpty());
+    }
+}
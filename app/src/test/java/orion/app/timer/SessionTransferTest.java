@@ -0,0 +1,122 @@
+package orion.app.timer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streaming export/import of the session history, on plain files.
+ */
+public class SessionTransferTest {
+    private static final int SESSIONS = 100_000;
+    private static final long BASE_START = 1_600_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SessionHistory source;
+
+    @Before
+    public void setUp() throws IOException {
+        source = new SessionHistory(folder.newFile("source.csv"));
+        List<SessionRecord> chunk = new ArrayList<>(SessionTransfer.CHUNK_SIZE);
+        for (int i = 1; i <= SESSIONS; i++) {
+            chunk.add(new SessionRecord(i, BASE_START + i * 1_800_000L, 25 * 60_000L, i % 3 != 0));
+            if (chunk.size() == SessionTransfer.CHUNK_SIZE) {
+                source.appendAll(chunk);
+                chunk.clear();
+            }
+        }
+        source.appendAll(chunk);
+    }
+
+    private SessionTransfer.Result export(SessionCodec.Format format, File file, SessionTransfer.Task task) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return SessionTransfer.export(source, channel, format, task, null);
+        }
+    }
+
+    private SessionTransfer.Result importInto(SessionHistory history, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return SessionTransfer.importFrom(history, channel, null, null);
+        }
+    }
+
+    @Test
+    public void csv_roundTripsAndDedupes() throws IOException {
+        File export = folder.newFile("export.csv");
+        assertEquals(SESSIONS, export(SessionCodec.Format.CSV, export, null).written);
+
+        SessionHistory target = new SessionHistory(new File(folder.getRoot(), "target.csv"));
+        SessionTransfer.Result first = importInto(target, export);
+        assertEquals(SESSIONS, first.written);
+        assertEquals(0, first.rejected);
+
+        SessionTransfer.Result second = importInto(target, export);
+        assertEquals(0, second.written);
+        assertEquals(SESSIONS, second.duplicates);
+        assertEquals(SESSIONS, target.loadIds().size());
+    }
+
+    @Test
+    public void jsonl_roundTripsRecords() throws IOException {
+        File export = folder.newFile("export.jsonl");
+        export(SessionCodec.Format.JSONL, export, null);
+
+        SessionHistory target = new SessionHistory(new File(folder.getRoot(), "target.csv"));
+        assertEquals(SESSIONS, importInto(target, export).written);
+
+        long[] checked = new long[1];
+        target.forEach(record -> {
+            checked[0]++;
+            assertEquals(BASE_START + record.id * 1_800_000L, record.startMillis);
+            assertEquals(25 * 60_000L, record.durationMillis);
+            assertEquals(record.id % 3 != 0, record.completed);
+            return true;
+        });
+        assertEquals(SESSIONS, checked[0]);
+    }
+
+    @Test
+    public void import_rejectsInvalidLines() throws IOException {
+        File input = folder.newFile("input.csv");
+        Files.write(input.toPath(), ("id,start,duration,completed\n"
+                + "1,1600000000000,1500000,1\n"
+                + "garbage\n"
+                + "\n"
+                + "2,-5,1500000,1\n"
+                + "{\"id\":3,\"start\":1600000000000,\"duration\":60000,\"completed\":false}\n"
+                + "1,1600000000000,1500000,1\n").getBytes(StandardCharsets.US_ASCII));
+
+        SessionHistory target = new SessionHistory(new File(folder.getRoot(), "target.csv"));
+        SessionTransfer.Result result = importInto(target, input);
+        assertEquals(2, result.written);
+        assertEquals(1, result.duplicates);
+        assertEquals(2, result.rejected);
+    }
+
+    @Test
+    public void export_stopsWhenCancelled() throws IOException {
+        SessionTransfer.Task task = new SessionTransfer.Task();
+        task.cancel();
+
+        SessionTransfer.Result result = export(SessionCodec.Format.CSV, folder.newFile("export.csv"), task);
+        assertTrue(result.cancelled);
+        assertEquals(SessionTransfer.CHUNK_SIZE, result.written);
+        assertFalse(result.written == SESSIONS);
+    }
+}
@@ -0,0 +1,108 @@
+package orion.app.timer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Subject catalog persistence, running totals and the tagged history format.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SubjectCatalogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void totals_followAppendedSessions() throws Exception {
+        File catalogFile = new File(folder.getRoot(), "subjects.csv");
+        SubjectCatalog catalog = new SubjectCatalog(catalogFile);
+        SessionHistory history = new SessionHistory(folder.newFile("history.csv"));
+        history.setListener(catalog);
+
+        Subject math = catalog.getOrCreate("Math, chapter 3");
+        Subject reading = catalog.getOrCreate("Reading");
+        assertEquals(math.id, catalog.getOrCreate("Math, chapter 3").id);
+
+        history.appendAll(Arrays.asList(
+                new SessionRecord(1, 1_000L, 25 * 60_000L, true, math.id),
+                new SessionRecord(2, 2_000L, 10 * 60_000L, false, math.id),
+                new SessionRecord(3, 3_000L, 25 * 60_000L, true)));
+        catalog.awaitSaved();
+
+        assertEquals(2, catalog.find(math.id).sessionCount);
+        assertEquals(35 * 60_000L, catalog.find(math.id).totalMillis);
+        assertEquals(0, catalog.find(reading.id).sessionCount);
+        assertNull(catalog.find(Subject.NONE));
+
+        // Reload from disk
+        SubjectCatalog reloaded = new SubjectCatalog(catalogFile);
+        Subject restored = reloaded.find(math.id);
+        assertEquals("Math, chapter 3", restored.name);
+        assertEquals(35 * 60_000L, restored.totalMillis);
+        assertEquals(2, reloaded.getAll().size());
+    }
+
+    @Test
+    public void subjectColumn_roundTripsAndStaysOptional() throws IOException {
+        SessionHistory history = new SessionHistory(folder.newFile("history.csv"));
+        history.appendAll(Arrays.asList(
+                new SessionRecord(1, 1_000L, 60_000L, true, 42L),
+                new SessionRecord(2, 2_000L, 60_000L, true)));
+
+        List<SessionRecord> records = new ArrayList<>();
+        history.forEach(records::add);
+        assertEquals(42L, records.get(0).subjectId);
+        assertEquals(Subject.NONE, records.get(1).subjectId);
+
+        // JSON lines carry the subject as an optional key
+        File json = folder.newFile("history.jsonl");
+        try (FileChannel channel = FileChannel.open(json.toPath(), StandardOpenOption.WRITE)) {
+            SessionTransfer.export(history, channel, SessionCodec.Format.JSONL, null, null);
+        }
+        SessionHistory imported = new SessionHistory(folder.newFile("imported.csv"));
+        try (FileChannel channel = FileChannel.open(json.toPath(), StandardOpenOption.READ)) {
+            SessionTransfer.importFrom(imported, channel, null, null);
+        }
+        records.clear();
+        imported.forEach(records::add);
+        assertEquals(42L, records.get(0).subjectId);
+        assertEquals(Subject.NONE, records.get(1).subjectId);
+    }
+
+    @Test
+    public void rename_rejectsTakenName() throws Exception {
+        File catalogFile = new File(folder.getRoot(), "subjects.csv");
+        SubjectCatalog catalog = new SubjectCatalog(catalogFile);
+        Subject math = catalog.getOrCreate("Math");
+        Subject reading = catalog.getOrCreate("Reading");
+
+        assertFalse(catalog.rename(reading.id, " Math "));
+        assertEquals(math.id, catalog.findByName("Math").id);
+        assertEquals(reading.id, catalog.findByName("Reading").id);
+        assertTrue(catalog.rename(reading.id, "Novels"));
+        assertNull(catalog.findByName("Reading"));
+
+        // Removing one subject leaves the other's name alone
+        catalog.remove(reading.id);
+        assertEquals(math.id, catalog.getOrCreate("Math").id);
+        catalog.awaitSaved();
+        assertEquals(math.id, new SubjectCatalog(catalogFile).findByName("Math").id);
+    }
+}
@@ -0,0 +1,215 @@
+package orion.app.timer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Delta sync between devices through MockSyncServer: history, batching, restarts and the active timer.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SyncClientTest {
+    private static final long MINUTE = 60_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockSyncServer server = new MockSyncServer();
+
+    // One device: its own files directory and history
+    private final class Device {
+        final File dir;
+        final SessionHistory history;
+        SyncClient client;
+        SyncProtocol.TimerState remoteTimer;
+        long remainingMillis = -1;
+
+        Device(String name) throws IOException {
+            dir = folder.newFolder(name);
+            history = new SessionHistory(new File(dir, SessionHistory.FILE_NAME));
+            restart();
+        }
+
+        void restart() {
+            history.setListener(null);
+            client = new SyncClient(dir, history, server);
+            client.setTimerListener((state, remaining) -> {
+                remoteTimer = state;
+                remainingMillis = remaining;
+            });
+        }
+
+        int historySize() throws IOException {
+            return history.loadIds().size();
+        }
+    }
+
+    private static List<SessionRecord> sessions(long firstId, int count) {
+        List<SessionRecord> records = new ArrayList<>(count);
+        long start = 1_600_000_000_000L + firstId * 30 * MINUTE;
+        for (int i = 0; i < count; i++) {
+            long startMillis = start + i * 30 * MINUTE;
+            records.add(new SessionRecord(SessionRecord.newId(startMillis), startMillis, 25 * MINUTE, i % 4 != 0,
+                    i % 3 == 0 ? 42L : Subject.NONE));
+        }
+        return records;
+    }
+
+    @Test
+    public void histories_converge() throws Exception {
+        Device phone = new Device("phone");
+        Device tablet = new Device("tablet");
+        phone.history.appendAll(sessions(0, 3));
+        tablet.history.appendAll(sessions(100, 2));
+
+        phone.client.sync();
+        tablet.client.sync();
+        phone.client.sync();
+        assertEquals(5, phone.historySize());
+        assertEquals(5, tablet.historySize());
+
+        // Nothing left to exchange, pulled records are not pushed back
+        SyncClient.Result result = tablet.client.sync();
+        assertEquals(0, result.pushed);
+        assertEquals(0, result.pulled);
+        assertEquals(1, result.roundTrips);
+
+        // Unsent changes and the vector clock survive a restart
+        phone.history.appendAll(sessions(200, 1));
+        phone.restart();
+        assertEquals(1, phone.client.pendingCount());
+        assertEquals(1, phone.client.sync().pushed);
+        tablet.restart();
+        assertEquals(1, tablet.client.sync().pulled);
+        assertEquals(6, tablet.historySize());
+    }
+
+    @Test
+    public void outboxAheadOfState_keepsSeqsUnique() throws Exception {
+        Device phone = new Device("phone");
+        Device tablet = new Device("tablet");
+        phone.history.appendAll(sessions(0, 1));
+        File state = new File(phone.dir, SyncClient.STATE_FILE_NAME);
+        byte[] saved = Files.readAllBytes(state.toPath());
+        phone.history.appendAll(sessions(100, 1));
+        // Killed after the outbox write, before the state was saved
+        Files.write(state.toPath(), saved);
+
+        phone.restart();
+        phone.history.appendAll(sessions(200, 1));
+        assertEquals(3, phone.client.sync().pushed);
+        tablet.client.sync();
+        assertEquals(3, tablet.historySize());
+    }
+
+    @Test
+    public void failedAppend_isPulledAgain() throws Exception {
+        Device phone = new Device("phone");
+        Device tablet = new Device("tablet");
+        phone.history.appendAll(sessions(0, 5));
+        phone.client.sync();
+
+        // History path that cannot be created, so the pulled records fail to append
+        File file = new File(tablet.dir, SessionHistory.FILE_NAME);
+        Files.createSymbolicLink(file.toPath(), new File(folder.getRoot(), "missing/history").toPath());
+        try {
+            tablet.client.sync();
+            throw new AssertionError("Expected IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+
+        assertTrue(file.delete());
+        assertEquals(5, tablet.client.sync().pulled);
+        assertEquals(5, tablet.historySize());
+    }
+
+    @Test
+    public void largeHistory_syncsInBatches() throws Exception {
+        Device phone = new Device("phone");
+        Device tablet = new Device("tablet");
+        phone.history.appendAll(sessions(0, 100_000));
+
+        SyncClient.Result upload = phone.client.sync();
+        assertEquals(100_000, upload.pushed);
+        assertEquals((100_000 + SyncProtocol.BATCH_SIZE - 1) / SyncProtocol.BATCH_SIZE, upload.roundTrips);
+        assertTrue("bytes per session: " + upload.bytesSent / 100_000, upload.bytesSent < 100_000L * 16);
+        assertEquals(0, phone.client.pendingCount());
+
+        SyncClient.Result download = tablet.client.sync();
+        assertEquals(100_000, download.pulled);
+        assertTrue(download.bytesReceived < 100_000L * 16);
+        assertEquals(100_000, tablet.historySize());
+
+        // Afterwards only the delta travels
+        phone.history.appendAll(sessions(500_000, 1));
+        phone.client.sync();
+        SyncClient.Result delta = tablet.client.sync();
+        assertEquals(1, delta.pulled);
+        assertEquals(1, delta.roundTrips);
+    }
+
+    @Test
+    public void timer_latestCommandWins() throws Exception {
+        Device phone = new Device("phone");
+        Device tablet = new Device("tablet");
+        // The server clock is 5 minutes ahead of both devices
+        server.skewMillis = 5 * MINUTE;
+        phone.client.sync();
+        tablet.client.sync();
+
+        long now = System.currentTimeMillis();
+        phone.client.setLocalTimer(true, false, now + 20 * MINUTE, 0, 25 * MINUTE, Subject.NONE);
+        phone.client.sync();
+        tablet.client.sync();
+        assertTrue(tablet.remoteTimer.isRunning);
+        // Deadline rebased onto the tablet, not shifted by the skew
+        assertTrue(Math.abs(tablet.remainingMillis - 20 * MINUTE) < 2_000);
+        assertNull(phone.remoteTimer);
+
+        // Both pause; the tablet's later command wins on both devices
+        phone.client.setLocalTimer(true, true, 0, 19 * MINUTE, 25 * MINUTE, Subject.NONE);
+        Thread.sleep(20);
+        tablet.client.setLocalTimer(true, true, 0, 18 * MINUTE, 25 * MINUTE, Subject.NONE);
+        tablet.client.sync();
+        phone.client.sync();
+        assertEquals(tablet.client.getDeviceId(), phone.remoteTimer.origin);
+        assertEquals(18 * MINUTE, phone.remainingMillis);
+        assertFalse(tablet.remoteTimer.isPaused);
+
+        // Stopped on the phone
+        phone.client.setLocalTimer(false, false, 0, 0, 0, Subject.NONE);
+        phone.client.sync();
+        tablet.client.sync();
+        assertFalse(tablet.remoteTimer.isRunning);
+        assertEquals(0, tablet.remainingMillis);
+    }
+
+    @Test
+    public void truncatedMessage_isRejected() {
+        byte[] request = SyncProtocol.encodeRequest(new SyncProtocol.Request(7L, new long[0], new long[0],
+                Arrays.asList(new SyncProtocol.Change(7L, 1, sessions(0, 1).get(0))), null, 10));
+        try {
+            SyncProtocol.decodeRequest(Arrays.copyOf(request, request.length - 3));
+            throw new AssertionError("Expected IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package orion.app.timer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Second boundaries of TimerListItem, which drive the list's shared ticker.
+ */
+public class TimerListItemTest {
+
+    @Test
+    public void nextSecond_atExactBoundary() {
+        // 5000 ms left at uptime 1000
+        TimerListItem item = TimerListItem.running(1, "Focus", 25 * 60_000L, 6_000L);
+        assertEquals(5, item.displayedSecond(1_000L));
+        long delay = item.millisToNextSecond(1_000L);
+        assertEquals(1, delay);
+        assertEquals(4, item.displayedSecond(1_000L + delay));
+    }
+
+    @Test
+    public void nextSecond_betweenBoundaries() {
+        TimerListItem item = TimerListItem.running(1, "Focus", 25 * 60_000L, 6_000L);
+        // 4500 ms left: shows 4 until 3999 ms left
+        long delay = item.millisToNextSecond(1_500L);
+        assertEquals(501, delay);
+        assertEquals(4, item.displayedSecond(1_500L + delay - 1));
+        assertEquals(3, item.displayedSecond(1_500L + delay));
+    }
+
+    @Test
+    public void nextSecond_idleWhenPausedOrDone() {
+        assertEquals(-1, TimerListItem.paused(1, "Focus", 25 * 60_000L, 4_500L).millisToNextSecond(0L));
+        assertEquals(-1, TimerListItem.running(1, "Focus", 25 * 60_000L, 6_000L).millisToNextSecond(6_000L));
+    }
+}
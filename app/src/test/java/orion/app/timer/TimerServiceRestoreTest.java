@@ -0,0 +1,208 @@
+package orion.app.timer;
+
+import android.app.AlarmManager;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * TimerService killed mid-session (no onDestroy) and recreated by the system, and scheduled starts.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TimerServiceRestoreTest {
+    private Context context;
+    private NotificationManager notificationManager;
+
+    @Before
+    public void setUp() {
+        ProcessState.reset();
+        context = ApplicationProvider.getApplicationContext();
+        notificationManager = context.getSystemService(NotificationManager.class);
+    }
+
+    @After
+    public void tearDown() {
+        ProcessState.reset();
+    }
+
+    private Intent startIntent(long seconds) {
+        Intent intent = new Intent(context, TimerService.class);
+        intent.setAction(TimerService.ACTION_START);
+        intent.putExtra(TimerService.BUNDLE_TIMER_TIME, seconds);
+        intent.putExtra(TimerService.BUNDLE_START_TIME, "10:00");
+        return intent;
+    }
+
+    // Commands and restore run on the service worker looper
+    private static TimerService create() {
+        TimerService service = Robolectric.buildService(TimerService.class).create().get();
+        idle(service);
+        return service;
+    }
+
+    private static void idle(TimerService service) {
+        shadowOf(service.getWorkerLooper()).idle();
+    }
+
+    private static void command(TimerService service, Intent intent, int flags, int startId) {
+        service.onStartCommand(intent, flags, startId);
+        idle(service);
+    }
+
+    private static String dump(TimerService service) {
+        StringWriter out = new StringWriter();
+        service.dump(null, new PrintWriter(out), new String[0]);
+        return out.toString();
+    }
+
+    private boolean hasNotificationText(String text) {
+        for (Notification notification : shadowOf(notificationManager).getAllNotifications()) {
+            CharSequence content = notification.extras.getCharSequence(Notification.EXTRA_TEXT);
+            if (content != null && text.contentEquals(content)) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void killedMidSession_resumesFromDeadline() {
+        TimerService first = create();
+        command(first, startIntent(25 * 60), 0, 1);
+
+        // 10 minutes later the process is killed, onDestroy is never called
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(10));
+        notificationManager.cancelAll();
+
+        // System restarts the sticky service with a null intent
+        TimerService second = create();
+        int mode = second.onStartCommand(null, Service.START_FLAG_RETRY, 2);
+        idle(second);
+
+        assertEquals(Service.START_STICKY, mode);
+        String state = dump(second);
+        assertTrue(state, state.contains("running=true"));
+        assertTrue(state, state.contains("remaining=15:00"));
+        assertFalse("Session Start must not be sent again", hasNotificationText("Session Start"));
+    }
+
+    @Test
+    public void redeliveredStart_doesNotRestartDuration() {
+        TimerService first = create();
+        command(first, startIntent(25 * 60), 0, 1);
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(5));
+
+        TimerService second = create();
+        command(second, startIntent(25 * 60), Service.START_FLAG_REDELIVERY, 2);
+
+        String state = dump(second);
+        assertTrue(state, state.contains("remaining=20:00"));
+    }
+
+    @Test
+    public void killedPastDeadline_endsSession() {
+        TimerService first = create();
+        command(first, startIntent(5 * 60), 0, 1);
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(30));
+
+        TimerService second = create();
+
+        String state = dump(second);
+        assertTrue(state, state.contains("running=false"));
+        assertTrue(hasNotificationText("Session has ended"));
+    }
+
+    @Test
+    public void pausedSession_restoresPausedRemaining() {
+        TimerService first = create();
+        command(first, startIntent(25 * 60), 0, 1);
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(5));
+        Intent pause = new Intent(context, TimerService.class).setAction(TimerService.ACTION_PAUSE);
+        command(first, pause, 0, 2);
+
+        // Time spent paused and dead does not count
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(30));
+        TimerService second = create();
+
+        String state = dump(second);
+        assertTrue(state, state.contains("paused=true"));
+        assertTrue(state, state.contains("remaining=20:00"));
+    }
+
+    @Test
+    public void cancelledScheduledStart_entersForegroundBeforeStopping() {
+        TimerService service = create();
+        Intent intent = startIntent(25 * 60).putExtra(TimerService.BUNDLE_SCHEDULED_ID, 42L);
+        command(service, intent, 0, 1);
+
+        // startForegroundService was used by the alarm, so startForeground must come first
+        assertTrue(shadowOf(service).getLastForegroundNotification() != null);
+        assertTrue(shadowOf(service).isStoppedBySelf());
+        assertTrue(dump(service).contains("running=false"));
+    }
+
+    @Test
+    public void deadlineAlarm_followsCountdown() {
+        ShadowAlarmManager alarms = shadowOf(context.getSystemService(AlarmManager.class));
+        TimerService service = create();
+        long deadline = SystemClock.elapsedRealtime() + 25 * 60_000L;
+        command(service, startIntent(25 * 60), 0, 1);
+        // Wakes the device for the chime even if the tick is held back in suspend
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        assertEquals(deadline, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+
+        command(service, new Intent(context, TimerService.class).setAction(TimerService.ACTION_PAUSE), 0, 2);
+        assertEquals(0, alarms.getScheduledAlarms().size());
+
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(5));
+        command(service, new Intent(context, TimerService.class).setAction(TimerService.ACTION_RESUME), 0, 3);
+        assertEquals(deadline + 5 * 60_000L, alarms.peekNextScheduledAlarm().getTriggerAtMs());
+    }
+
+    @Test
+    public void adjustTime_sendsStateChange() {
+        TimerService service = create();
+        command(service, startIntent(25 * 60), 0, 1);
+        long[] remaining = {-1};
+        // What the tile does on a state change
+        LocalBroadcastManager.getInstance(context).registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                remaining[0] = TimerService.getSnapshot().remainingMillis(SystemClock.elapsedRealtime());
+            }
+        }, new IntentFilter(TimerService.BROADCAST_ACTION_TIMER_STATE_CHANGED));
+
+        Intent adjust = new Intent(context, TimerService.class).setAction(TimerService.ACTION_ADJUST_TIME)
+                .putExtra(TimerService.EXTRA_ADJUSTMENT_TIME, 60L);
+        command(service, adjust, 0, 2);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(26 * 60_000L, remaining[0]);
+    }
+}